@@ -0,0 +1,59 @@
+package pdg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The Class BenchmarkInputs. Loads the sources the benchmarks run on: the examples of the project
+ * by name, a synthetic class when the name is synthetic-&lt;methods&gt;x&lt;depth&gt;x&lt;variables&gt;,
+ * or a call dense class when it is calls-&lt;methods&gt;x&lt;calls&gt;.
+ */
+final class BenchmarkInputs {
+
+    /** The prefix of the synthetic inputs. */
+    private static final String SYNTHETIC = "synthetic-";
+
+    /** The prefix of the call dense inputs. */
+    private static final String CALLS = "calls-";
+
+    /**
+     * Instantiates a new benchmark inputs.
+     */
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Gets the source of an input.
+     *
+     * @param name an example name, such as ifTest, synthetic-4x6x40 or calls-40x100
+     * @return the source
+     * @throws IOException Signals that the example could not be read.
+     */
+    static String load(String name) throws IOException {
+        if (name.startsWith(SYNTHETIC)) {
+            String[] sizes = name.substring(SYNTHETIC.length()).split("x");
+            return SyntheticSource.generate(Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1]), Integer.parseInt(sizes[2]));
+        }
+        if (name.startsWith(CALLS)) {
+            String[] sizes = name.substring(CALLS.length()).split("x");
+            return CallSource.generate(Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1]));
+        }
+        return new String(Files.readAllBytes(examplesDir().resolve(name).resolve(name + ".java")), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the examples folder, from the pdg.examples property or next to the working directory.
+     *
+     * @return the examples folder
+     */
+    private static Path examplesDir() {
+        String property = System.getProperty("pdg.examples");
+        if (property != null)
+            return Paths.get(property);
+        Path local = Paths.get("examples");
+        return Files.isDirectory(local) ? local : Paths.get("..", "examples");
+    }
+}
@@ -0,0 +1,58 @@
+package pdg;
+
+/**
+ * The Class CallSource. Generates a class that stresses the resolution of method calls: every method is
+ * made of calls to the other methods, half of them declared further down, unscoped, through this, on a
+ * variable and on a qualified name, with lambda arguments that make the text of a call long. Each call
+ * defines a variable of its own, so the flow dependencies stay linear in the number of calls.
+ */
+final class CallSource {
+
+    /**
+     * Instantiates a new call source.
+     */
+    private CallSource() {
+    }
+
+    /**
+     * Generates the class.
+     *
+     * @param methods the number of methods
+     * @param calls the number of calls in each method
+     * @return the source
+     */
+    static String generate(int methods, int calls) {
+        StringBuilder code = new StringBuilder();
+        code.append("public class Calls {\n");
+        code.append("\tint total;\n");
+        for (int m = 0; m < methods; m++) {
+            code.append("\tint method").append(m).append("(int a, int b) {\n");
+            String previous = "a";
+            for (int c = 0; c < calls; c++) {
+                int target = (m + c + 1) % methods;
+                String variable = "m" + m + "v" + c;
+                code.append("\t\tint ").append(variable).append(";\n");
+                code.append("\t\t").append(variable).append(" = ");
+                switch (c % 4) {
+                    case 0:
+                        code.append("method").append(target).append("(").append(previous).append(", b)");
+                        break;
+                    case 1:
+                        code.append("this.method").append(target).append("(b, ").append(previous).append(")");
+                        break;
+                    case 2:
+                        code.append("helper.apply(").append(previous).append(", x -> x + a, (x, y) -> x * y + b)");
+                        break;
+                    default:
+                        code.append("util.Numbers.max(").append(previous).append(", b, x -> x * ").append(c).append(" + a)");
+                }
+                code.append(";\n");
+                previous = variable;
+            }
+            code.append("\t\treturn ").append(previous).append(";\n");
+            code.append("\t}\n");
+        }
+        code.append("}\n");
+        return code.toString();
+    }
+}
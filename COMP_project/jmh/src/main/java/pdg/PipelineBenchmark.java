@@ -0,0 +1,247 @@
+package pdg;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseException;
+import com.github.javaparser.ast.CompilationUnit;
+import graphExport.DotGraphExporter;
+import graphExport.GraphExporter;
+import graphStructures.CompactGraph;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import graphStructures.SourceFile;
+import org.jgrapht.DirectedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class PipelineBenchmark. Measures each stage of PDGCore.addFile on its own - parsing,
+ * the semantic analysis that builds the graph, the loop dependencies and the DOT export - so a
+ * regression shows up in the stage that caused it. The analysis of a parsed file is also measured
+ * whole, in each analysis mode. Throughput gives the operations per second and
+ * SampleTime the latency percentiles; run with -prof gc for the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PipelineBenchmark {
+
+    /** The diagnostics listener, the benchmarks ignore the diagnostics. */
+    private static final DiagnosticsListener IGNORE = diagnostic -> { };
+
+    /**
+     * The Class Input. The source of the benchmarked file and its AST, parsed once per trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        /** The input name: an example, synthetic-&lt;methods&gt;x&lt;depth&gt;x&lt;variables&gt; or calls-&lt;methods&gt;x&lt;calls&gt;. */
+        @Param({"ifTest", "nestedCycleTest", "complexTest", "synthetic-8x6x40", "synthetic-16x10x80", "calls-40x100"})
+        public String input;
+
+        /** The text. */
+        String text;
+
+        /** The source. */
+        SourceFile source;
+
+        /** The compilation unit. */
+        CompilationUnit cu;
+
+        /**
+         * Loads and parses the input.
+         *
+         * @throws IOException Signals that the example could not be read.
+         * @throws ParseException Signals that the input is not valid Java.
+         */
+        @Setup(Level.Trial)
+        public void load() throws IOException, ParseException {
+            text = BenchmarkInputs.load(input);
+            source = new SourceFile(text);
+            cu = JavaParser.parse(new StringReader(text), true);
+        }
+
+        /**
+         * Runs the semantic analysis on a new graph.
+         *
+         * @return the visitor, holding the symbol table
+         */
+        CodeVisitor analyze(CompactGraph hrefGraph) {
+            GraphNode entry = new GraphNode(0, "Entry");
+            hrefGraph.addNode(entry);
+            CodeVisitor cv = new CodeVisitor(input, 1, source, IGNORE);
+            cv.st.declare(cu);
+            cv.semanticAnalysis(cu, hrefGraph, entry, new ArrayList<>());
+            return cv;
+        }
+    }
+
+    /**
+     * The Class Analyzed. A graph built by the semantic analysis, before the loop dependencies.
+     * It is rebuilt before every call since addDependencies adds its edges to it.
+     */
+    @State(Scope.Thread)
+    public static class Analyzed {
+
+        /** The href graph. */
+        CompactGraph hrefGraph;
+
+        /** The symbol table. */
+        SymbolTable st;
+
+        /**
+         * Builds the graph.
+         *
+         * @param in the input
+         */
+        @Setup(Level.Invocation)
+        public void build(Input in) {
+            hrefGraph = new CompactGraph();
+            st = in.analyze(hrefGraph).st;
+        }
+    }
+
+    /**
+     * The Class Complete. The full graph of the input, built once per trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Complete {
+
+        /** The JGraphT view of the graph. */
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> hrefGraph;
+
+        /** The exporter. */
+        final GraphExporter exporter = new DotGraphExporter();
+
+        /**
+         * Builds the graph.
+         *
+         * @param in the input
+         */
+        @Setup(Level.Trial)
+        public void build(Input in) {
+            CompactGraph graph = new CompactGraph();
+            in.analyze(graph).st.addDependencies(graph);
+            graph.trim();
+            hrefGraph = graph.asDirectedGraph();
+        }
+    }
+
+    /**
+     * The Class Analysis. A core analyzing the input in one mode, with the parse of the input kept in its cache.
+     */
+    @State(Scope.Benchmark)
+    public static class Analysis {
+
+        /**
+         * The mode: sequential, parallel for the method bodies analyzed in parallel, or reaching-definitions for the
+         * flow edges added by reaching definitions.
+         */
+        @Param({"sequential", "parallel", "reaching-definitions"})
+        public String mode;
+
+        /** The core. */
+        PDGCore core;
+
+        /** The content of the input. */
+        byte[] content;
+
+        /**
+         * Creates the core and parses the input into its cache.
+         *
+         * @param in the input
+         * @throws IOException Signals that the input could not be read.
+         */
+        @Setup(Level.Trial)
+        public void build(Input in) throws IOException {
+            core = new PDGCore(new AnalysisOptions().setParallelMethods("parallel".equals(mode))
+                    .setReachingDefinitions("reaching-definitions".equals(mode)));
+            content = in.text.getBytes(StandardCharsets.UTF_8);
+            core.addFile(in.input, 0, content, IGNORE);
+        }
+    }
+
+    /**
+     * Parses the input.
+     *
+     * @param in the input
+     * @return the compilation unit
+     * @throws ParseException Signals that the input is not valid Java.
+     */
+    @Benchmark
+    public CompilationUnit parse(Input in) throws ParseException {
+        return JavaParser.parse(new StringReader(in.text), true);
+    }
+
+    /**
+     * Runs the semantic analysis, building the control dependencies and the symbol table.
+     *
+     * @param in the input
+     * @return the graph
+     */
+    @Benchmark
+    public CompactGraph semanticAnalysis(Input in) {
+        CompactGraph hrefGraph = new CompactGraph();
+        in.analyze(hrefGraph);
+        return hrefGraph;
+    }
+
+    /**
+     * Adds the loop dependencies to an analyzed graph.
+     *
+     * @param analyzed the analyzed graph
+     * @return the graph
+     */
+    @Benchmark
+    public CompactGraph addDependencies(Analyzed analyzed) {
+        analyzed.st.addDependencies(analyzed.hrefGraph);
+        return analyzed.hrefGraph;
+    }
+
+    /**
+     * Analyzes the parsed input as PDGCore.addFile does: the semantic analysis, the dependencies and the
+     * trimming of the graph.
+     *
+     * @param in the input
+     * @param analysis the core and its mode
+     * @return the graph
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Benchmark
+    public CompactGraph analyzeFile(Input in, Analysis analysis) throws IOException {
+        return analysis.core.addFile(in.input, 0, analysis.content, IGNORE);
+    }
+
+    /**
+     * Exports the full graph as DOT.
+     *
+     * @param complete the full graph
+     * @return the DOT text
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Benchmark
+    public String exportDot(Complete complete) throws IOException {
+        StringWriter out = new StringWriter();
+        complete.exporter.export(complete.hrefGraph, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package pdg;
+
+/**
+ * The Class SyntheticSource. Generates a class that stresses the analysis: every method declares
+ * many variables and nests while, for and do loops that keep reading and redefining them.
+ */
+final class SyntheticSource {
+
+    /**
+     * Instantiates a new synthetic source.
+     */
+    private SyntheticSource() {
+    }
+
+    /**
+     * Generates the class.
+     *
+     * @param methods the number of methods
+     * @param depth the loop nesting depth of each method
+     * @param variables the number of local variables of each method
+     * @return the source
+     */
+    static String generate(int methods, int depth, int variables) {
+        StringBuilder code = new StringBuilder();
+        code.append("public class Synthetic {\n");
+        code.append("\tint total;\n");
+        for (int m = 0; m < methods; m++) {
+            code.append("\tint method").append(m).append("(int seed) {\n");
+            for (int v = 0; v < variables; v++) {
+                code.append("\t\tint v").append(v).append(" = ");
+                code.append(v == 0 ? "seed" : "v" + (v - 1) + " + " + v).append(";\n");
+            }
+            appendLoops(code, 0, depth, variables, "\t\t");
+            if (m > 0)
+                code.append("\t\ttotal = method").append(m - 1).append("(v0);\n");
+            code.append("\t\treturn v").append(variables - 1).append(";\n");
+            code.append("\t}\n");
+        }
+        code.append("}\n");
+        return code.toString();
+    }
+
+    /**
+     * Appends a loop and the loops nested in it.
+     *
+     * @param code the code
+     * @param level the nesting level of the loop
+     * @param depth the loop nesting depth
+     * @param variables the number of local variables
+     * @param indent the indentation of the loop
+     */
+    private static void appendLoops(StringBuilder code, int level, int depth, int variables, String indent) {
+        if (level == depth)
+            return;
+        String counter = "i" + level;
+        String inner = indent + "\t";
+        String read = "v" + (level % variables);
+        String written = "v" + ((level * 7 + 3) % variables);
+        switch (level % 3) {
+            case 0:
+                code.append(indent).append("int ").append(counter).append(" = 0;\n");
+                code.append(indent).append("while (").append(counter).append(" < ").append(read).append(") {\n");
+                break;
+            case 1:
+                // the analyzer does not declare variables in a for header, so the counter is declared before it
+                code.append(indent).append("int ").append(counter).append(";\n");
+                code.append(indent).append("for (").append(counter).append(" = 0; ").append(counter).append(" < ").append(read).append("; ").append(counter).append("++) {\n");
+                break;
+            default:
+                code.append(indent).append("int ").append(counter).append(" = 0;\n");
+                code.append(indent).append("do {\n");
+        }
+        code.append(inner).append(written).append(" = ").append(written).append(" + ").append(read).append(";\n");
+        appendLoops(code, level + 1, depth, variables, inner);
+        code.append(inner).append(read).append(" = ").append(written).append(" - ").append(counter).append(";\n");
+        if (level % 3 != 1)
+            code.append(inner).append(counter).append(" = ").append(counter).append(" + 1;\n");
+        if (level % 3 == 2)
+            code.append(indent).append("} while (").append(counter).append(" < ").append(read).append(");\n");
+        else
+            code.append(indent).append("}\n");
+    }
+}
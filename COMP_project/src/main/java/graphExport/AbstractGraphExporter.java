@@ -0,0 +1,77 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * The Class AbstractGraphExporter. Buffers the output, gives every node its id once and
+ * shortens the labels, leaving the layout of the format to the subclasses.
+ */
+public abstract class AbstractGraphExporter implements GraphExporter {
+
+    /** The longest label written, longer labels are cut. */
+    private static final int MAX_LABEL_LENGTH = 80;
+
+    /** The node id provider. */
+    private final NodeIdProvider idProvider;
+
+    /**
+     * Instantiates a new graph exporter.
+     *
+     * @param idProvider the node id provider
+     */
+    protected AbstractGraphExporter(NodeIdProvider idProvider) {
+        this.idProvider = idProvider;
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.GraphExporter#export(org.jgrapht.DirectedGraph, java.io.Writer)
+     */
+    @Override
+    public void export(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, Writer out) throws IOException {
+        HashMap<GraphNode, String> ids = new HashMap<>();
+        int index = 0;
+        for (GraphNode node : hrefGraph.vertexSet())
+            ids.put(node, idProvider.nodeId(node, index++));
+
+        Writer buffered = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        write(hrefGraph, ids, buffered);
+        buffered.flush();
+    }
+
+    /**
+     * Writes the graph.
+     *
+     * @param hrefGraph the href graph
+     * @param ids the id of each node
+     * @param out the buffered destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void write(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, HashMap<GraphNode, String> ids, Writer out) throws IOException;
+
+    /**
+     * Gets the label of a node: its line and the first line of its statement, cut when too long.
+     *
+     * @param node the node
+     * @return the label
+     */
+    protected static String labelOf(GraphNode node) {
+        String label = node.getLabel();
+        int end = label.indexOf('\n');
+        if (end < 0)
+            end = label.length();
+        boolean cut = end < label.length();
+        if (end > MAX_LABEL_LENGTH) {
+            end = MAX_LABEL_LENGTH;
+            cut = true;
+        }
+        String text = label.substring(0, end).trim();
+        return "[" + node.getLine() + "] " + (cut ? text + " ..." : text);
+    }
+}
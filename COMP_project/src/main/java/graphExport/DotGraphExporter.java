@@ -0,0 +1,105 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * The Class DotGraphExporter. Writes the graph in the Graphviz DOT format.
+ */
+public class DotGraphExporter extends AbstractGraphExporter {
+
+    /**
+     * Instantiates a new DOT exporter numbering the nodes.
+     */
+    public DotGraphExporter() {
+        this(NodeIdProvider.SEQUENTIAL);
+    }
+
+    /**
+     * Instantiates a new DOT exporter.
+     *
+     * @param idProvider the node id provider
+     */
+    public DotGraphExporter(NodeIdProvider idProvider) {
+        super(idProvider);
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.AbstractGraphExporter#write(org.jgrapht.DirectedGraph, java.util.HashMap, java.io.Writer)
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void write(DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, HashMap<GraphNode, String> ids, Writer out) throws IOException {
+        out.write("digraph G {\n");
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            out.write("  ");
+            writeId(ids.get(node), out);
+            out.write(" [ label=");
+            writeString(labelOf(node), out);
+            out.write(" ];\n");
+        }
+        for (RelationshipEdge edge : hrefGraph.edgeSet()) {
+            out.write("  ");
+            writeId(ids.get(hrefGraph.getEdgeSource(edge)), out);
+            out.write(" -> ");
+            writeId(ids.get(hrefGraph.getEdgeTarget(edge)), out);
+            out.write(" [ label=");
+            writeString(edge.toString(), out);
+            out.write(" ];\n");
+        }
+        out.write("}\n");
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.GraphExporter#getExtension()
+     */
+    @Override
+    public String getExtension() {
+        return "dot";
+    }
+
+    /**
+     * Writes an id, quoted unless it is a plain identifier.
+     *
+     * @param id the id
+     * @param out the destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeId(String id, Writer out) throws IOException {
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_') || (i == 0 && Character.isDigit(c))) {
+                writeString(id, out);
+                return;
+            }
+        }
+        out.write(id);
+    }
+
+    /**
+     * Writes a quoted and escaped DOT string.
+     *
+     * @param value the value
+     * @param out the destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeString(String value, Writer out) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': break;
+                default: out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
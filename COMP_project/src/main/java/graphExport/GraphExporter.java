@@ -0,0 +1,31 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The Interface GraphExporter. Writes a PDG to a text format. Exporters keep no state between
+ * calls, so one exporter can be used by several threads at once.
+ */
+public interface GraphExporter {
+
+    /**
+     * Exports the graph.
+     *
+     * @param hrefGraph the href graph
+     * @param out the destination, buffered by the exporter and left open
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void export(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, Writer out) throws IOException;
+
+    /**
+     * Gets the file extension of the format, without the dot.
+     *
+     * @return the file extension
+     */
+    String getExtension();
+}
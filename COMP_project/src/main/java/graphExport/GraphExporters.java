@@ -0,0 +1,44 @@
+package graphExport;
+
+/**
+ * The Class GraphExporters. Picks an exporter from a format name or a file name.
+ */
+public final class GraphExporters {
+
+    /**
+     * Instantiates a new graph exporters.
+     */
+    private GraphExporters() {
+    }
+
+    /**
+     * Gets the exporter of a format.
+     *
+     * @param format dot, graphml or json
+     * @return the exporter, null for an unknown format
+     */
+    public static GraphExporter forFormat(String format) {
+        switch (format.toLowerCase()) {
+            case "dot":
+                return new DotGraphExporter();
+            case "graphml":
+                return new GraphMLGraphExporter();
+            case "json":
+                return new JsonGraphExporter();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the exporter for a file name from its extension, DOT when the extension is unknown.
+     *
+     * @param fileName the file name
+     * @return the exporter
+     */
+    public static GraphExporter forFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        GraphExporter exporter = dot < 0 ? null : forFormat(fileName.substring(dot + 1));
+        return exporter == null ? new DotGraphExporter() : exporter;
+    }
+}
@@ -0,0 +1,102 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * The Class GraphMLGraphExporter. Writes the graph in the GraphML format, with the label, line
+ * and AST kind of each node and the type of each edge as data.
+ */
+public class GraphMLGraphExporter extends AbstractGraphExporter {
+
+    /**
+     * Instantiates a new GraphML exporter numbering the nodes.
+     */
+    public GraphMLGraphExporter() {
+        this(NodeIdProvider.SEQUENTIAL);
+    }
+
+    /**
+     * Instantiates a new GraphML exporter.
+     *
+     * @param idProvider the node id provider
+     */
+    public GraphMLGraphExporter(NodeIdProvider idProvider) {
+        super(idProvider);
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.AbstractGraphExporter#write(org.jgrapht.DirectedGraph, java.util.HashMap, java.io.Writer)
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void write(DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, HashMap<GraphNode, String> ids, Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n");
+        out.write("  <key id=\"line\" for=\"node\" attr.name=\"line\" attr.type=\"int\"/>\n");
+        out.write("  <key id=\"kind\" for=\"node\" attr.name=\"kind\" attr.type=\"string\"/>\n");
+        out.write("  <key id=\"type\" for=\"edge\" attr.name=\"type\" attr.type=\"string\"/>\n");
+        out.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            out.write("    <node id=\"");
+            writeEscaped(ids.get(node), out);
+            out.write("\">\n      <data key=\"label\">");
+            writeEscaped(labelOf(node), out);
+            out.write("</data>\n      <data key=\"line\">");
+            out.write(Integer.toString(node.getLine()));
+            out.write("</data>\n      <data key=\"kind\">");
+            writeEscaped(GraphNode.kindName(node.getKind()), out);
+            out.write("</data>\n    </node>\n");
+        }
+        int index = 0;
+        for (RelationshipEdge edge : hrefGraph.edgeSet()) {
+            out.write("    <edge id=\"e");
+            out.write(Integer.toString(index++));
+            out.write("\" source=\"");
+            writeEscaped(ids.get(hrefGraph.getEdgeSource(edge)), out);
+            out.write("\" target=\"");
+            writeEscaped(ids.get(hrefGraph.getEdgeTarget(edge)), out);
+            out.write("\">\n      <data key=\"type\">");
+            writeEscaped(edge.toString(), out);
+            out.write("</data>\n    </edge>\n");
+        }
+        out.write("  </graph>\n</graphml>\n");
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.GraphExporter#getExtension()
+     */
+    @Override
+    public String getExtension() {
+        return "graphml";
+    }
+
+    /**
+     * Writes a value with the XML special characters escaped.
+     *
+     * @param value the value
+     * @param out the destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeEscaped(String value, Writer out) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '&': out.write("&amp;"); break;
+                case '"': out.write("&quot;"); break;
+                case '\'': out.write("&apos;"); break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r')
+                        out.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * The Class JsonGraphExporter. Writes the graph as one compact JSON object:
+ * {"nodes":[{"id":..,"line":..,"kind":..,"label":..}],"edges":[{"source":..,"target":..,"type":..}]}.
+ */
+public class JsonGraphExporter extends AbstractGraphExporter {
+
+    /**
+     * Instantiates a new JSON exporter numbering the nodes.
+     */
+    public JsonGraphExporter() {
+        this(NodeIdProvider.SEQUENTIAL);
+    }
+
+    /**
+     * Instantiates a new JSON exporter.
+     *
+     * @param idProvider the node id provider
+     */
+    public JsonGraphExporter(NodeIdProvider idProvider) {
+        super(idProvider);
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.AbstractGraphExporter#write(org.jgrapht.DirectedGraph, java.util.HashMap, java.io.Writer)
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void write(DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, HashMap<GraphNode, String> ids, Writer out) throws IOException {
+        out.write("{\"nodes\":[");
+        boolean first = true;
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            if (!first)
+                out.write(',');
+            first = false;
+            out.write("{\"id\":");
+            writeString(ids.get(node), out);
+            out.write(",\"line\":");
+            out.write(Integer.toString(node.getLine()));
+            out.write(",\"kind\":");
+            writeString(GraphNode.kindName(node.getKind()), out);
+            out.write(",\"label\":");
+            writeString(labelOf(node), out);
+            out.write('}');
+        }
+        out.write("],\"edges\":[");
+        first = true;
+        for (RelationshipEdge edge : hrefGraph.edgeSet()) {
+            if (!first)
+                out.write(',');
+            first = false;
+            out.write("{\"source\":");
+            writeString(ids.get(hrefGraph.getEdgeSource(edge)), out);
+            out.write(",\"target\":");
+            writeString(ids.get(hrefGraph.getEdgeTarget(edge)), out);
+            out.write(",\"type\":");
+            writeString(edge.toString(), out);
+            out.write('}');
+        }
+        out.write("]}\n");
+    }
+
+    /* (non-Javadoc)
+     * @see graphExport.GraphExporter#getExtension()
+     */
+    @Override
+    public String getExtension() {
+        return "json";
+    }
+
+    /**
+     * Writes a quoted and escaped JSON string.
+     *
+     * @param value the value, written as null when null
+     * @param out the destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void writeString(String value, Writer out) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        out.write(String.format("\\u%04x", (int) c));
+                    else
+                        out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
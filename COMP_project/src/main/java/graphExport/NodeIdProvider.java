@@ -0,0 +1,24 @@
+package graphExport;
+
+import graphStructures.GraphNode;
+
+/**
+ * The Interface NodeIdProvider. Gives the identifier a node is written with.
+ */
+public interface NodeIdProvider {
+
+    /** Numbers the nodes in the order they are written: n0, n1, ... */
+    NodeIdProvider SEQUENTIAL = (node, index) -> "n" + index;
+
+    /** Names the nodes after their line, followed by their index since a line can hold several nodes: Line_3_n7. */
+    NodeIdProvider LINE = (node, index) -> "Line_" + node.getLine() + "_n" + index;
+
+    /**
+     * Gets the id of a node. Ids must be unique within a graph.
+     *
+     * @param node the node
+     * @param index the position of the node in the vertex set of the graph
+     * @return the id
+     */
+    String nodeId(GraphNode node, int index);
+}
@@ -0,0 +1,394 @@
+package graphStore;
+
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import graphStructures.SourceFile;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The Class GraphStore. A graph written by {@link GraphStoreWriter}, read through a memory mapped buffer
+ * so that opening it costs nothing and a query only touches the pages it reads. Nothing is copied onto
+ * the heap until asked for, except the strings and source files already decoded.
+ * <p>
+ * The file is big endian. After a header of eight ints (magic, version, node count, edge count,
+ * string count, file count, edge kind count, reserved) come, in order:
+ * <ul>
+ * <li>the string table: the end offset of every string in the string data, then the UTF-8 string data, padded to 4 bytes</li>
+ * <li>the files: the name and the source text of every file, as string indexes</li>
+ * <li>the edge kinds: the label of every edge kind code, as string indexes</li>
+ * <li>the node columns, one int per node each: file index (-1 for the nodes without a file), line, column,
+ * kind name, offset and length of the statement in the source text, and label (-1 for the nodes with a file)</li>
+ * <li>the edges by source node: the index of the first edge of every node plus the edge count, the target of every edge,
+ * then the kind code of every edge as a byte</li>
+ * </ul>
+ */
+public final class GraphStore {
+
+    /** The file extension. */
+    public static final String EXTENSION = "pdgs";
+
+    /** The magic number, "PDGS". */
+    static final int MAGIC = 0x50444753;
+
+    /** The format version, 2 since the edge kinds have no parameter out. */
+    static final int VERSION = 2;
+
+    /** The header size in bytes. */
+    static final int HEADER_SIZE = 8 * Integer.BYTES;
+
+    /** The mapped file. */
+    private final ByteBuffer buffer;
+
+    /** The node count. */
+    private final int nodeCount;
+
+    /** The edge count. */
+    private final int edgeCount;
+
+    /** The end offset of every string in the string data. */
+    private final IntBuffer stringEnds;
+
+    /** The position of the string data. */
+    private final int stringData;
+
+    /** The name and source text of every file. */
+    private final IntBuffer files;
+
+    /** The kind of every edge kind code. */
+    private final EdgeKind[] edgeKinds;
+
+    /** The node columns. */
+    private final IntBuffer nodeFiles, nodeLines, nodeColumns, nodeKinds, nodeOffsets, nodeLengths, nodeLabels;
+
+    /** The index of the first edge of every node. */
+    private final IntBuffer edgeStarts;
+
+    /** The target of every edge. */
+    private final IntBuffer edgeTargets;
+
+    /** The position of the edge kind codes. */
+    private final int edgeCodes;
+
+    /** The strings decoded so far. */
+    private final String[] strings;
+
+    /** The source files decoded so far. */
+    private final SourceFile[] sources;
+
+    /**
+     * Instantiates a new graph store.
+     *
+     * @param buffer the whole file
+     * @throws IOException Signals that the file is not a graph store.
+     */
+    private GraphStore(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a graph store");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported graph store version " + buffer.getInt(4));
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+        int fileCount = buffer.getInt(20);
+        int edgeKindCount = buffer.getInt(24);
+
+        int position = HEADER_SIZE;
+        stringEnds = ints(position, stringCount);
+        position += stringCount * Integer.BYTES;
+        stringData = position;
+        position += align(stringCount == 0 ? 0 : stringEnds.get(stringCount - 1));
+        files = ints(position, fileCount * 2);
+        position += fileCount * 2 * Integer.BYTES;
+        IntBuffer edgeKindLabels = ints(position, edgeKindCount);
+        position += edgeKindCount * Integer.BYTES;
+        int column = nodeCount * Integer.BYTES;
+        nodeFiles = ints(position, nodeCount);
+        nodeLines = ints(position += column, nodeCount);
+        nodeColumns = ints(position += column, nodeCount);
+        nodeKinds = ints(position += column, nodeCount);
+        nodeOffsets = ints(position += column, nodeCount);
+        nodeLengths = ints(position += column, nodeCount);
+        nodeLabels = ints(position += column, nodeCount);
+        edgeStarts = ints(position += column, nodeCount + 1);
+        position += (nodeCount + 1) * Integer.BYTES;
+        edgeTargets = ints(position, edgeCount);
+        edgeCodes = position + edgeCount * Integer.BYTES;
+        if (edgeCodes + edgeCount != buffer.limit())
+            throw new IOException("Truncated graph store");
+
+        strings = new String[stringCount];
+        sources = new SourceFile[fileCount];
+        edgeKinds = new EdgeKind[edgeKindCount];
+        for (int code = 0; code < edgeKindCount; code++) {
+            edgeKinds[code] = EdgeKind.fromLabel(string(edgeKindLabels.get(code)));
+            if (edgeKinds[code] == null)
+                throw new IOException("Unknown edge kind " + string(edgeKindLabels.get(code)));
+        }
+    }
+
+    /**
+     * Opens a graph store. The file is mapped, not read.
+     *
+     * @param path the path of the store
+     * @return the graph store
+     * @throws IOException Signals that the file could not be mapped or is not a graph store.
+     */
+    public static GraphStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return new GraphStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Truncated graph store", e);
+            }
+        }
+    }
+
+    /**
+     * Rounds a size up to a multiple of 4 bytes.
+     *
+     * @param size the size
+     * @return the aligned size
+     */
+    static int align(int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * Gets a view of an int array of the file.
+     *
+     * @param position the position of the array
+     * @param count the int count
+     * @return the view
+     */
+    private IntBuffer ints(int position, int count) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + count * Integer.BYTES);
+        return view.slice().asIntBuffer();
+    }
+
+    /**
+     * Gets a string of the string table.
+     *
+     * @param index the string index
+     * @return the string
+     */
+    private String string(int index) {
+        String string = strings[index];
+        if (string == null) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(stringData + (index == 0 ? 0 : stringEnds.get(index - 1)));
+            view.limit(stringData + stringEnds.get(index));
+            string = StandardCharsets.UTF_8.decode(view).toString();
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Gets the source file of a file.
+     *
+     * @param file the file index
+     * @return the source file
+     */
+    private SourceFile source(int file) {
+        SourceFile source = sources[file];
+        if (source == null) {
+            source = new SourceFile(string(files.get(file * 2 + 1)));
+            sources[file] = source;
+        }
+        return source;
+    }
+
+    /**
+     * Gets the node count.
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the edge count.
+     *
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the file count.
+     *
+     * @return the file count
+     */
+    public int getFileCount() {
+        return files.limit() / 2;
+    }
+
+    /**
+     * Gets the name of a file.
+     *
+     * @param file the file index
+     * @return the file name
+     */
+    public String getFileName(int file) {
+        return string(files.get(file * 2));
+    }
+
+    /**
+     * Gets the file of a node.
+     *
+     * @param node the node index
+     * @return the file index, -1 for the nodes that do not come from a file
+     */
+    public int getFile(int node) {
+        return nodeFiles.get(node);
+    }
+
+    /**
+     * Gets the line of a node.
+     *
+     * @param node the node index
+     * @return the line
+     */
+    public int getLine(int node) {
+        return nodeLines.get(node);
+    }
+
+    /**
+     * Gets the column of a node.
+     *
+     * @param node the node index
+     * @return the column
+     */
+    public int getColumn(int node) {
+        return nodeColumns.get(node);
+    }
+
+    /**
+     * Gets the kind name of a node.
+     *
+     * @param node the node index
+     * @return the kind name
+     */
+    public String getKindName(int node) {
+        return string(nodeKinds.get(node));
+    }
+
+    /**
+     * Gets the label of a node, the source text of its statement. Decodes the source text of its file the first time.
+     *
+     * @param node the node index
+     * @return the label
+     */
+    public String getLabel(int node) {
+        int file = nodeFiles.get(node);
+        if (file < 0)
+            return string(nodeLabels.get(node));
+        return source(file).text(nodeOffsets.get(node), nodeLengths.get(node));
+    }
+
+    /**
+     * Gets the first edge of a node.
+     *
+     * @param node the node index
+     * @return the index of the first edge leaving the node
+     */
+    public int getEdgeStart(int node) {
+        return edgeStarts.get(node);
+    }
+
+    /**
+     * Gets the end of the edges of a node.
+     *
+     * @param node the node index
+     * @return the index after the last edge leaving the node
+     */
+    public int getEdgeEnd(int node) {
+        return edgeStarts.get(node + 1);
+    }
+
+    /**
+     * Gets the target of an edge.
+     *
+     * @param edge the edge index
+     * @return the target node index
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets.get(edge);
+    }
+
+    /**
+     * Gets the kind of an edge.
+     *
+     * @param edge the edge index
+     * @return the edge kind
+     */
+    public EdgeKind getEdgeKind(int edge) {
+        return edgeKinds[buffer.get(edgeCodes + edge) & 0xff];
+    }
+
+    /**
+     * Finds the nodes of a file on a line.
+     *
+     * @param fileName the file name
+     * @param line the line
+     * @return the node indexes, in store order
+     */
+    public int[] findNodes(String fileName, int line) {
+        int file = -1;
+        for (int i = 0; i < getFileCount() && file < 0; i++)
+            if (getFileName(i).equals(fileName))
+                file = i;
+        int[] found = new int[4];
+        int count = 0;
+        if (file < 0)
+            return new int[0];
+        for (int node = 0; node < nodeCount; node++) {
+            if (nodeLines.get(node) == line && nodeFiles.get(node) == file) {
+                if (count == found.length)
+                    found = Arrays.copyOf(found, count * 2);
+                found[count++] = node;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Loads the whole graph onto the heap, with the nodes of each file sharing its source text.
+     *
+     * @return the graph
+     */
+    @SuppressWarnings("rawtypes")
+    public DirectedGraph<GraphNode, RelationshipEdge> toGraph() {
+        DirectedGraph<GraphNode, RelationshipEdge> hrefGraph = new DefaultDirectedGraph<>(RelationshipEdge.class);
+        GraphNode[] nodes = new GraphNode[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int file = nodeFiles.get(node);
+            if (file < 0)
+                nodes[node] = new GraphNode(nodeLines.get(node), string(nodeLabels.get(node)));
+            else
+                nodes[node] = new GraphNode(file + 1, nodeLines.get(node), nodeColumns.get(node), GraphNode.kindId(getKindName(node)),
+                        source(file), nodeOffsets.get(node), nodeLengths.get(node));
+            hrefGraph.addVertex(nodes[node]);
+        }
+        for (int node = 0; node < nodeCount; node++)
+            for (int edge = getEdgeStart(node); edge < getEdgeEnd(node); edge++)
+                hrefGraph.addEdge(nodes[node], nodes[getEdgeTarget(edge)], new RelationshipEdge(getEdgeKind(edge)));
+        return hrefGraph;
+    }
+}
@@ -0,0 +1,188 @@
+package graphStore;
+
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import graphStructures.SourceFile;
+import org.jgrapht.DirectedGraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The Class GraphStoreWriter. Writes a graph in the binary format read by {@link GraphStore}. The source text
+ * of every file is written once and the nodes keep the range of their statement in it, as they do in memory.
+ */
+public final class GraphStoreWriter {
+
+    /** The strings, in index order. */
+    private final List<byte[]> strings = new ArrayList<>();
+
+    /** The index of every string. */
+    private final HashMap<String, Integer> stringIndexes = new HashMap<>();
+
+    /** The file index of every source file. */
+    private final IdentityHashMap<SourceFile, Integer> fileIndexes = new IdentityHashMap<>();
+
+    /** The name and source text of every file, as string indexes. */
+    private final List<int[]> files = new ArrayList<>();
+
+    /**
+     * Instantiates a new graph store writer.
+     */
+    private GraphStoreWriter() {
+    }
+
+    /**
+     * Writes a graph to a file.
+     *
+     * @param hrefGraph the href graph
+     * @param fileNames the name of a file from its file id
+     * @param path the path of the store
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void write(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, IntFunction<String> fileNames, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(hrefGraph, fileNames, out);
+        }
+    }
+
+    /**
+     * Writes a graph.
+     *
+     * @param hrefGraph the href graph
+     * @param fileNames the name of a file from its file id
+     * @param out the destination, left open
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void write(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, IntFunction<String> fileNames, OutputStream out) throws IOException {
+        new GraphStoreWriter().writeGraph(hrefGraph, fileNames, out);
+    }
+
+    /**
+     * Writes a graph.
+     *
+     * @param hrefGraph the href graph
+     * @param fileNames the name of a file from its file id
+     * @param out the destination
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @SuppressWarnings("rawtypes")
+    private void writeGraph(DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, IntFunction<String> fileNames, OutputStream out) throws IOException {
+        int nodeCount = hrefGraph.vertexSet().size();
+        HashMap<GraphNode, Integer> nodeIndexes = new HashMap<>();
+        int[] nodeFiles = new int[nodeCount], nodeLines = new int[nodeCount], nodeColumns = new int[nodeCount], nodeKinds = new int[nodeCount],
+                nodeOffsets = new int[nodeCount], nodeLengths = new int[nodeCount], nodeLabels = new int[nodeCount];
+        int index = 0;
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            nodeIndexes.put(node, index);
+            SourceFile source = node.getSource();
+            nodeFiles[index] = source == null ? -1 : fileIndex(source, node.getFileId(), fileNames);
+            nodeLines[index] = node.getLine();
+            nodeColumns[index] = node.getColumn();
+            nodeKinds[index] = stringIndex(GraphNode.kindName(node.getKind()));
+            nodeOffsets[index] = node.getOffset();
+            nodeLengths[index] = node.getLength();
+            nodeLabels[index] = source == null ? stringIndex(node.getLabel()) : -1;
+            index++;
+        }
+
+        int[] edgeKinds = new int[EdgeKind.values().length];
+        for (EdgeKind kind : EdgeKind.values())
+            edgeKinds[kind.code()] = stringIndex(kind.getLabel());
+
+        int edgeCount = hrefGraph.edgeSet().size();
+        int[] edgeStarts = new int[nodeCount + 1];
+        int[] edgeTargets = new int[edgeCount];
+        byte[] edgeCodes = new byte[edgeCount];
+        int edge = 0;
+        index = 0;
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            edgeStarts[index++] = edge;
+            for (RelationshipEdge<?> outgoing : hrefGraph.outgoingEdgesOf(node)) {
+                edgeTargets[edge] = nodeIndexes.get(hrefGraph.getEdgeTarget(outgoing));
+                edgeCodes[edge++] = outgoing.getKind().code();
+            }
+        }
+        edgeStarts[nodeCount] = edge;
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(GraphStore.MAGIC);
+        data.writeInt(GraphStore.VERSION);
+        data.writeInt(nodeCount);
+        data.writeInt(edgeCount);
+        data.writeInt(strings.size());
+        data.writeInt(files.size());
+        data.writeInt(edgeKinds.length);
+        data.writeInt(0);
+
+        int end = 0;
+        for (byte[] string : strings)
+            data.writeInt(end += string.length);
+        for (byte[] string : strings)
+            data.write(string);
+        for (int i = end; i < GraphStore.align(end); i++)
+            data.writeByte(0);
+        for (int[] file : files) {
+            data.writeInt(file[0]);
+            data.writeInt(file[1]);
+        }
+        for (int kind : edgeKinds)
+            data.writeInt(kind);
+        for (int[] column : new int[][] { nodeFiles, nodeLines, nodeColumns, nodeKinds, nodeOffsets, nodeLengths, nodeLabels, edgeStarts, edgeTargets })
+            for (int value : column)
+                data.writeInt(value);
+        data.write(edgeCodes);
+        data.flush();
+    }
+
+    /**
+     * Gets the index of a string, adding it to the string table when new.
+     *
+     * @param string the string
+     * @return the string index
+     */
+    private int stringIndex(String string) {
+        return stringIndexes.computeIfAbsent(string, s -> {
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Gets the name of a file.
+     *
+     * @param fileId the file id
+     * @param fileNames the name of a file from its file id
+     * @return the file name, made up from the file id when unknown
+     */
+    private static String fileName(int fileId, IntFunction<String> fileNames) {
+        String fileName = fileNames.apply(fileId);
+        return fileName == null ? "file" + fileId : fileName;
+    }
+
+    /**
+     * Gets the index of a file, adding its name and source text when new.
+     *
+     * @param source the source file
+     * @param fileId the file id
+     * @param fileNames the name of a file from its file id
+     * @return the file index
+     */
+    private int fileIndex(SourceFile source, int fileId, IntFunction<String> fileNames) {
+        return fileIndexes.computeIfAbsent(source, s -> {
+            files.add(new int[] { stringIndex(fileName(fileId, fileNames)), stringIndex(s.getText()) });
+            return files.size() - 1;
+        });
+    }
+}
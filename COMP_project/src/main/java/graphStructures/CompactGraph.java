@@ -0,0 +1,399 @@
+package graphStructures;
+
+import org.jgrapht.DirectedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The Class CompactGraph. The graph the analysis builds: the nodes get an int id in the order they are added,
+ * and the edges are kept in parallel primitive arrays with the code of their {@link EdgeKind} as a byte, instead of one edge object and
+ * two edge set entries per edge. As in a {@link org.jgrapht.graph.DefaultDirectedGraph}, adding a node equal to an
+ * existing one or a second edge between the same nodes does nothing. The outgoing and incoming edges of every node
+ * are indexed in compressed sparse rows the first time they are asked for after a change. Once built,
+ * {@link #trim()} orders the edges by source and drops what only the construction needs.
+ * {@link #asDirectedGraph()} gives a read-only JGraphT view for the GUI and the exporters.
+ */
+public class CompactGraph {
+
+    /** The initial edge capacity. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The empty slot of the edge key set. */
+    private static final long NO_EDGE = -1L;
+
+    /** The nodes, by id. */
+    private final ArrayList<GraphNode> nodes = new ArrayList<>();
+
+    /** The id of every node. */
+    private final HashMap<GraphNode, Integer> ids = new HashMap<>();
+
+    /** The edge count. */
+    private int edgeCount = 0;
+
+    /** The source of every edge. */
+    private int[] sources = new int[INITIAL_CAPACITY];
+
+    /** The target of every edge. */
+    private int[] targets = new int[INITIAL_CAPACITY];
+
+    /** The kind code of every edge. */
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    /** The source and target of every edge packed in a long, open addressing with linear probing. Null once trimmed. */
+    private long[] edgeKeys = newKeys(INITIAL_CAPACITY * 2);
+
+    /** Whether the edges are ordered by source, then the outgoing rows are the edges themselves. */
+    private boolean sortedBySource = false;
+
+    /** The index of the first outgoing edge of every node, then the edges ordered by source, null when sorted by source. */
+    private int[] outStarts, outEdges;
+
+    /** The index of the first incoming edge of every node, then the edges ordered by target. */
+    private int[] inStarts, inEdges;
+
+    /** The node and edge counts when the rows were built, -1 when never built. */
+    private int indexedNodes = -1, indexedEdges = -1;
+
+    /**
+     * Adds a node, unless an equal node is already there.
+     *
+     * @param node the node
+     * @return the id of the node, or of the equal node already there
+     */
+    public int addNode(GraphNode node) {
+        Integer id = ids.get(node);
+        if (id != null)
+            return id;
+        ids.put(node, nodes.size());
+        nodes.add(node);
+        return nodes.size() - 1;
+    }
+
+    /**
+     * Gets the id of a node.
+     *
+     * @param node the node
+     * @return the id, -1 when the node is not in the graph
+     */
+    public int nodeId(GraphNode node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets a node.
+     *
+     * @param id the node id
+     * @return the node
+     */
+    public GraphNode getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Gets the node count.
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Gets the edge count.
+     *
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Adds an edge between two nodes of the graph, unless they are already joined in that direction.
+     *
+     * @param source the source node
+     * @param target the target node
+     * @param kind the edge kind
+     * @return true, if the edge was added
+     * @throws IllegalArgumentException if a node is not in the graph
+     */
+    public boolean addEdge(GraphNode source, GraphNode target, EdgeKind kind) {
+        int from = nodeId(source);
+        int to = nodeId(target);
+        if (from < 0 || to < 0)
+            throw new IllegalArgumentException("no such vertex in graph: " + (from < 0 ? source : target));
+        return addEdge(from, to, kind);
+    }
+
+    /**
+     * Adds an edge between two nodes, unless they are already joined in that direction.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @param kind the edge kind
+     * @return true, if the edge was added
+     */
+    public boolean addEdge(int source, int target, EdgeKind kind) {
+        if (edgeKeys == null)
+            rehash();
+        long key = key(source, target);
+        int slot = slot(key);
+        if (edgeKeys[slot] == key)
+            return false;
+        if (edgeCount == sources.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, edgeCount * 2);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        sortedBySource = false;
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        kinds[edgeCount] = kind.code();
+        edgeCount++;
+        edgeKeys[slot] = key;
+        if (edgeCount * 2 > edgeKeys.length)
+            rehash();
+        return true;
+    }
+
+    /**
+     * Finds the edge between two nodes.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the edge index, -1 when there is none
+     */
+    public int findEdge(int source, int target) {
+        if (source < 0 || target < 0 || (edgeKeys != null && edgeKeys[slot(key(source, target))] == NO_EDGE))
+            return -1;
+        for (int i = 0; i < outDegree(source); i++)
+            if (targets[outgoingEdge(source, i)] == target)
+                return outgoingEdge(source, i);
+        return -1;
+    }
+
+    /**
+     * Gets the source of an edge.
+     *
+     * @param edge the edge index
+     * @return the source node id
+     */
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Gets the target of an edge.
+     *
+     * @param edge the edge index
+     * @return the target node id
+     */
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Gets the kind of an edge.
+     *
+     * @param edge the edge index
+     * @return the edge kind
+     */
+    public EdgeKind getEdgeKind(int edge) {
+        return EdgeKind.of(kinds[edge]);
+    }
+
+    /**
+     * Gets the kind code of an edge, to filter edges by kind without looking the kind up.
+     *
+     * @param edge the edge index
+     * @return the code of the edge kind, see {@link EdgeKind#code()}
+     */
+    public byte getEdgeKindCode(int edge) {
+        return kinds[edge];
+    }
+
+    /**
+     * Gets the outgoing edge count of a node.
+     *
+     * @param node the node id
+     * @return the out degree
+     */
+    public int outDegree(int node) {
+        index();
+        return outStarts[node + 1] - outStarts[node];
+    }
+
+    /**
+     * Gets an outgoing edge of a node, in the order the edges were added.
+     *
+     * @param node the node id
+     * @param i the position among the outgoing edges of the node
+     * @return the edge index
+     */
+    public int outgoingEdge(int node, int i) {
+        index();
+        return outEdges == null ? outStarts[node] + i : outEdges[outStarts[node] + i];
+    }
+
+    /**
+     * Gets the incoming edge count of a node.
+     *
+     * @param node the node id
+     * @return the in degree
+     */
+    public int inDegree(int node) {
+        index();
+        return inStarts[node + 1] - inStarts[node];
+    }
+
+    /**
+     * Gets an incoming edge of a node, in the order the edges were added.
+     *
+     * @param node the node id
+     * @param i the position among the incoming edges of the node
+     * @return the edge index
+     */
+    public int incomingEdge(int node, int i) {
+        index();
+        return inEdges[inStarts[node] + i];
+    }
+
+    /**
+     * Gets a read-only JGraphT view of the graph. Its edges are made when iterated and are equal when they
+     * stand for the same edge, so the view holds no more than the graph itself.
+     *
+     * @return the view
+     */
+    @SuppressWarnings("rawtypes")
+    public DirectedGraph<GraphNode, RelationshipEdge> asDirectedGraph() {
+        return new CompactGraphView(this);
+    }
+
+    /**
+     * Copies the nodes and edges into another graph.
+     *
+     * @param hrefGraph the href graph
+     */
+    public void copyInto(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph) {
+        nodes.forEach(hrefGraph::addVertex);
+        for (int edge = 0; edge < edgeCount; edge++)
+            hrefGraph.addEdge(nodes.get(sources[edge]), nodes.get(targets[edge]), new RelationshipEdge<>(EdgeKind.of(kinds[edge])));
+    }
+
+    /**
+     * Orders the edges by source, keeping the order they were added in for each source, and frees what only
+     * adding edges needs: the edge key set and the spare room of the arrays. The outgoing rows are then the
+     * edges themselves. Edge indexes change, so views made before must not be used after.
+     */
+    public synchronized void trim() {
+        int[] order = new int[edgeCount];
+        sortEdges(sources, new int[nodes.size() + 1], order);
+        int[] sortedSources = new int[edgeCount];
+        int[] sortedTargets = new int[edgeCount];
+        byte[] sortedKinds = new byte[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sortedSources[i] = sources[order[i]];
+            sortedTargets[i] = targets[order[i]];
+            sortedKinds[i] = kinds[order[i]];
+        }
+        sources = sortedSources;
+        targets = sortedTargets;
+        kinds = sortedKinds;
+        edgeKeys = null;
+        nodes.trimToSize();
+        sortedBySource = true;
+        indexedEdges = -1;
+    }
+
+    /**
+     * Builds the outgoing and incoming rows when nodes or edges were added since they were last built.
+     */
+    private synchronized void index() {
+        if (indexedNodes == nodes.size() && indexedEdges == edgeCount)
+            return;
+        outStarts = new int[nodes.size() + 1];
+        outEdges = sortedBySource ? null : new int[edgeCount];
+        inStarts = new int[nodes.size() + 1];
+        inEdges = new int[edgeCount];
+        if (sortedBySource) {
+            for (int edge = 0; edge < edgeCount; edge++)
+                outStarts[sources[edge] + 1]++;
+            for (int node = 0; node < nodes.size(); node++)
+                outStarts[node + 1] += outStarts[node];
+        } else {
+            sortEdges(sources, outStarts, outEdges);
+        }
+        sortEdges(targets, inStarts, inEdges);
+        indexedNodes = nodes.size();
+        indexedEdges = edgeCount;
+    }
+
+    /**
+     * Orders the edges by one of their ends with a counting sort, which keeps the order they were added in.
+     *
+     * @param ends the end of every edge
+     * @param starts where the index of the first edge of every node goes
+     * @param sorted where the sorted edges go
+     */
+    private void sortEdges(int[] ends, int[] starts, int[] sorted) {
+        for (int edge = 0; edge < edgeCount; edge++)
+            starts[ends[edge] + 1]++;
+        for (int node = 0; node < nodes.size(); node++)
+            starts[node + 1] += starts[node];
+        int[] next = Arrays.copyOf(starts, nodes.size());
+        for (int edge = 0; edge < edgeCount; edge++)
+            sorted[next[ends[edge]]++] = edge;
+    }
+
+    /**
+     * Packs the ends of an edge in a long.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the edge key
+     */
+    private static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xffffffffL);
+    }
+
+    /**
+     * Finds the slot of an edge key: the slot holding it, or the empty slot where it goes.
+     *
+     * @param key the edge key
+     * @return the slot
+     */
+    private int slot(long key) {
+        int mask = edgeKeys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (edgeKeys[slot] != NO_EDGE && edgeKeys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Makes the edge key set twice as large as the edges need, building it again when trimmed.
+     */
+    private void rehash() {
+        edgeKeys = newKeys(Integer.highestOneBit(Math.max(INITIAL_CAPACITY, edgeCount) * 2) * 2);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            long key = key(sources[edge], targets[edge]);
+            edgeKeys[slot(key)] = key;
+        }
+    }
+
+    /**
+     * Makes an empty edge key set.
+     *
+     * @param capacity the capacity, a power of two
+     * @return the key set
+     */
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, NO_EDGE);
+        return keys;
+    }
+}
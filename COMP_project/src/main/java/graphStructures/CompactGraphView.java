@@ -0,0 +1,378 @@
+package graphStructures;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.EdgeFactory;
+import org.jgrapht.graph.AbstractGraph;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The Class CompactGraphView. A read-only JGraphT view of a {@link CompactGraph}. The edges are made when
+ * iterated, an edge is equal to every other edge made for the same edge index.
+ */
+@SuppressWarnings("rawtypes")
+class CompactGraphView extends AbstractGraph<GraphNode, RelationshipEdge> implements DirectedGraph<GraphNode, RelationshipEdge> {
+
+    /** The graph. */
+    private final CompactGraph graph;
+
+    /**
+     * Instantiates a new compact graph view.
+     *
+     * @param graph the graph
+     */
+    CompactGraphView(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the edge made for an edge index.
+     *
+     * @param edge the edge index
+     * @return the edge
+     */
+    private RelationshipEdge edge(int edge) {
+        return new Edge(graph, edge);
+    }
+
+    /**
+     * Gets the edge index of an edge of this view.
+     *
+     * @param e the edge
+     * @return the edge index, -1 when the edge is not from this view
+     */
+    private int index(Object e) {
+        if (!(e instanceof Edge) || ((Edge) e).graph != graph)
+            return -1;
+        return ((Edge) e).index;
+    }
+
+    /**
+     * Gets the id of a node of the graph.
+     *
+     * @param node the node
+     * @return the node id
+     * @throws IllegalArgumentException if the node is not in the graph
+     */
+    private int nodeId(GraphNode node) {
+        int id = graph.nodeId(node);
+        if (id < 0)
+            throw new IllegalArgumentException("no such vertex in graph: " + node);
+        return id;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getAllEdges(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Set<RelationshipEdge> getAllEdges(GraphNode sourceVertex, GraphNode targetVertex) {
+        RelationshipEdge edge = getEdge(sourceVertex, targetVertex);
+        return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getEdge(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public RelationshipEdge getEdge(GraphNode sourceVertex, GraphNode targetVertex) {
+        int edge = graph.findEdge(graph.nodeId(sourceVertex), graph.nodeId(targetVertex));
+        return edge < 0 ? null : edge(edge);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getEdgeFactory()
+     */
+    @Override
+    public EdgeFactory<GraphNode, RelationshipEdge> getEdgeFactory() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#addEdge(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public RelationshipEdge addEdge(GraphNode sourceVertex, GraphNode targetVertex) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#addEdge(java.lang.Object, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public boolean addEdge(GraphNode sourceVertex, GraphNode targetVertex, RelationshipEdge e) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#addVertex(java.lang.Object)
+     */
+    @Override
+    public boolean addVertex(GraphNode v) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#containsEdge(java.lang.Object)
+     */
+    @Override
+    public boolean containsEdge(RelationshipEdge e) {
+        return index(e) >= 0;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#containsVertex(java.lang.Object)
+     */
+    @Override
+    public boolean containsVertex(GraphNode v) {
+        return graph.nodeId(v) >= 0;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#edgeSet()
+     */
+    @Override
+    public Set<RelationshipEdge> edgeSet() {
+        return new EdgeSet(graph.getEdgeCount(), i -> i);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#edgesOf(java.lang.Object)
+     */
+    @Override
+    public Set<RelationshipEdge> edgesOf(GraphNode vertex) {
+        int node = nodeId(vertex);
+        int out = graph.outDegree(node);
+        int in = graph.inDegree(node);
+        // a self loop is both outgoing and incoming, list it once
+        int[] edges = new int[out + in];
+        int count = 0;
+        for (int i = 0; i < out; i++)
+            edges[count++] = graph.outgoingEdge(node, i);
+        for (int i = 0; i < in; i++) {
+            int edge = graph.incomingEdge(node, i);
+            if (graph.getEdgeSource(edge) != node)
+                edges[count++] = edge;
+        }
+        return new EdgeSet(count, i -> edges[i]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#removeEdge(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public RelationshipEdge removeEdge(GraphNode sourceVertex, GraphNode targetVertex) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#removeEdge(java.lang.Object)
+     */
+    @Override
+    public boolean removeEdge(RelationshipEdge e) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#removeVertex(java.lang.Object)
+     */
+    @Override
+    public boolean removeVertex(GraphNode v) {
+        throw new UnsupportedOperationException("read-only graph");
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#vertexSet()
+     */
+    @Override
+    public Set<GraphNode> vertexSet() {
+        return new AbstractSet<GraphNode>() {
+            @Override
+            public Iterator<GraphNode> iterator() {
+                return new Iterator<GraphNode>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < graph.getNodeCount();
+                    }
+
+                    @Override
+                    public GraphNode next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return graph.getNode(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return graph.getNodeCount();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof GraphNode && graph.nodeId((GraphNode) o) >= 0;
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getEdgeSource(java.lang.Object)
+     */
+    @Override
+    public GraphNode getEdgeSource(RelationshipEdge e) {
+        return graph.getNode(graph.getEdgeSource(((Edge) e).index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getEdgeTarget(java.lang.Object)
+     */
+    @Override
+    public GraphNode getEdgeTarget(RelationshipEdge e) {
+        return graph.getNode(graph.getEdgeTarget(((Edge) e).index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.Graph#getEdgeWeight(java.lang.Object)
+     */
+    @Override
+    public double getEdgeWeight(RelationshipEdge e) {
+        return 1.0;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.DirectedGraph#inDegreeOf(java.lang.Object)
+     */
+    @Override
+    public int inDegreeOf(GraphNode vertex) {
+        return graph.inDegree(nodeId(vertex));
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.DirectedGraph#incomingEdgesOf(java.lang.Object)
+     */
+    @Override
+    public Set<RelationshipEdge> incomingEdgesOf(GraphNode vertex) {
+        int node = nodeId(vertex);
+        return new EdgeSet(graph.inDegree(node), i -> graph.incomingEdge(node, i));
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.DirectedGraph#outDegreeOf(java.lang.Object)
+     */
+    @Override
+    public int outDegreeOf(GraphNode vertex) {
+        return graph.outDegree(nodeId(vertex));
+    }
+
+    /* (non-Javadoc)
+     * @see org.jgrapht.DirectedGraph#outgoingEdgesOf(java.lang.Object)
+     */
+    @Override
+    public Set<RelationshipEdge> outgoingEdgesOf(GraphNode vertex) {
+        int node = nodeId(vertex);
+        return new EdgeSet(graph.outDegree(node), i -> graph.outgoingEdge(node, i));
+    }
+
+    /**
+     * The Class EdgeSet. A set of edges given by position, with no duplicates.
+     */
+    private class EdgeSet extends AbstractSet<RelationshipEdge> {
+
+        /** The edge count. */
+        private final int size;
+
+        /** The edge index at each position. */
+        private final IntUnaryOperator edges;
+
+        /**
+         * Instantiates a new edge set.
+         *
+         * @param size the edge count
+         * @param edges the edge index at each position
+         */
+        EdgeSet(int size, IntUnaryOperator edges) {
+            this.size = size;
+            this.edges = edges;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#iterator()
+         */
+        @Override
+        public Iterator<RelationshipEdge> iterator() {
+            return new Iterator<RelationshipEdge>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public RelationshipEdge next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return edge(edges.applyAsInt(next++));
+                }
+            };
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The Class Edge. An edge of the view, standing for an edge index of the graph.
+     */
+    private static final class Edge extends RelationshipEdge<GraphNode> {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The graph. */
+        private final transient CompactGraph graph;
+
+        /** The edge index. */
+        private final int index;
+
+        /**
+         * Instantiates a new edge.
+         *
+         * @param graph the graph
+         * @param index the edge index
+         */
+        Edge(CompactGraph graph, int index) {
+            super(graph.getEdgeKind(index));
+            this.graph = graph;
+            this.index = index;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Edge && ((Edge) obj).graph == graph && ((Edge) obj).index == index;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return index;
+        }
+    }
+}
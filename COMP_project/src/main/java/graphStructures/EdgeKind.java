@@ -0,0 +1,93 @@
+package graphStructures;
+
+/**
+ * The Enum EdgeKind. The kind of a dependence between two graph nodes, with the short label it is
+ * printed and exported with. The ordinal is the byte code the compact graph and the graph store keep.
+ */
+public enum EdgeKind {
+
+    /** A statement runs depending on its parent. */
+    CONTROL("CD"),
+
+    /** A statement uses a variable defined by another one. */
+    FLOW("FD"),
+
+    /** A call site calls a method. */
+    CALL("CALL"),
+
+    /** An actual parameter is passed to a formal parameter. */
+    PARAMETER_IN("PI"),
+
+    /** A returned value is passed back to the call site, the only parameter out, as Java passes the parameters by value. */
+    RETURN("RET"),
+
+    /** A use in a loop reads a definition made later in the body, in an earlier iteration. */
+    LOOP_CARRIED("LC"),
+
+    /** An actual in parameter reaches the returned value of its call site through the called method. */
+    SUMMARY("SUM");
+
+    /** The kinds, by ordinal. */
+    private static final EdgeKind[] VALUES = values();
+
+    /** The label. */
+    private final String label;
+
+    /**
+     * Instantiates a new edge kind.
+     *
+     * @param label the label
+     */
+    EdgeKind(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the label.
+     *
+     * @return the label, such as CD or FD
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the byte code of the kind.
+     *
+     * @return the code, the ordinal
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Gets a kind from its byte code.
+     *
+     * @param code the code
+     * @return the kind
+     */
+    public static EdgeKind of(byte code) {
+        return VALUES[code];
+    }
+
+    /**
+     * Gets a kind from its label.
+     *
+     * @param label the label
+     * @return the kind, null when no kind has this label
+     */
+    public static EdgeKind fromLabel(String label) {
+        for (EdgeKind kind : VALUES)
+            if (kind.label.equals(label))
+                return kind;
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Enum#toString()
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
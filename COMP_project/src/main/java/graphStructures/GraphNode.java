@@ -1,30 +1,191 @@
 package graphStructures;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * The Class GraphNode.
+ * The Class GraphNode. A node is identified by its file, line, column, length and AST node kind,
+ * so equality and hashing never look at the statement text. The length tells apart the calls of a chain,
+ * which all start where the outermost one does. Nodes built from the AST only keep
+ * the range of their statement in the shared {@link SourceFile}; the label is rendered when asked for.
  */
 public class GraphNode {
     
-    /** The info. */
-    private String info;
+    /** The interned kind ids, by kind name. */
+    private static final ConcurrentHashMap<String, Integer> kindIds = new ConcurrentHashMap<>();
+    
+    /** The kind names, by kind id. */
+    private static final List<String> kindNames = new ArrayList<>();
+    
+    /** The kind of the nodes built without an AST node. */
+    private static final int SYNTHETIC_KIND = kindId("Synthetic");
+    
+    /** The info, only set for the nodes that do not come from a source file. */
+    private final String info;
+    
+    /** The source file. */
+    private final SourceFile source;
+    
+    /** The offset of the statement in the source file. */
+    private final int offset;
+    
+    /** The length of the statement in the source file. */
+    private final int length;
     
     /** The id. */
     private int id;
     
-    /** The exporting. */
-    public static boolean exporting = false;
+    /** The file id. */
+    private final int fileId;
+    
+    /** The column. */
+    private final int column;
+    
+    /** The kind id. */
+    private final int kind;
 
     /**
-     * Instantiates a new graph node.
+     * Instantiates a new graph node that does not come from the AST, such as the entry node.
      *
      * @param id the id
      * @param string the string
      */
     public GraphNode(int id, String string) {
         this.info = string;
+        this.source = null;
+        this.offset = 0;
+        this.length = 0;
         this.id = id;
+        this.fileId = 0;
+        this.column = 0;
+        this.kind = SYNTHETIC_KIND;
+    }
+
+    /**
+     * Instantiates a new graph node for a statement of a source file.
+     *
+     * @param fileId the file id
+     * @param line the line, used as id
+     * @param column the column
+     * @param kind the kind id, see {@link #kindId(String)}
+     * @param source the source file
+     * @param offset the offset of the statement in the source file
+     * @param length the length of the statement
+     */
+    public GraphNode(int fileId, int line, int column, int kind, SourceFile source, int offset, int length) {
+        this.info = null;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.id = line;
+        this.fileId = fileId;
+        this.column = column;
+        this.kind = kind;
+    }
+
+    /**
+     * Interns a kind name.
+     *
+     * @param name the kind name, usually the AST node class name
+     * @return the kind id
+     */
+    public static int kindId(String name) {
+        Integer kind = kindIds.get(name);
+        if (kind != null)
+            return kind;
+        synchronized (kindNames) {
+            return kindIds.computeIfAbsent(name, n -> {
+                kindNames.add(n);
+                return kindNames.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Gets the kind name.
+     *
+     * @param kind the kind id
+     * @return the kind name
+     */
+    public static String kindName(int kind) {
+        synchronized (kindNames) {
+            return kindNames.get(kind);
+        }
+    }
+
+    /**
+     * Gets the line.
+     *
+     * @return the line
+     */
+    public int getLine() {
+        return id;
+    }
+
+    /**
+     * Gets the file id.
+     *
+     * @return the file id
+     */
+    public int getFileId() {
+        return fileId;
+    }
+
+    /**
+     * Gets the column.
+     *
+     * @return the column
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the kind id.
+     *
+     * @return the kind id
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the source file.
+     *
+     * @return the source file, null for the nodes that do not come from a source file
+     */
+    public SourceFile getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the offset of the statement in the source file.
+     *
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the statement in the source file.
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Renders the label, the source text of the statement.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        if (source == null)
+            return info;
+        return source.text(offset, length);
     }
 
     /* (non-Javadoc)
@@ -32,9 +193,7 @@ public class GraphNode {
      */
     @Override
     public String toString() {
-        if(!exporting)
-            return ("[" + this.id + "] " + this.info);
-        return "Line_" + this.id;
+        return ("[" + this.id + "] " + getLabel());
     }
 
     /* (non-Javadoc)
@@ -42,6 +201,9 @@ public class GraphNode {
      */
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (obj == null) {
             return false;
         }
@@ -49,6 +211,15 @@ public class GraphNode {
             return false;
         }
         final GraphNode other = (GraphNode) obj;
-        return !(!Objects.equals(this.info, other.info) || other.info == null);
+        return this.id == other.id && this.column == other.column && this.length == other.length && this.kind == other.kind
+                && this.fileId == other.fileId;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (((fileId * 31 + id) * 31 + column) * 31 + length) * 31 + kind;
     }
 }
@@ -10,8 +10,8 @@ import org.jgrapht.graph.DefaultEdge;
 @SuppressWarnings("all")
 public class RelationshipEdge<V> extends DefaultEdge {
 
-    /** The type. */
-    String type;
+    /** The kind. */
+    final EdgeKind kind;
 
     /** The Constant serialVersionUID. */
     private static final long serialVersionUID = 1L;
@@ -19,25 +19,33 @@ public class RelationshipEdge<V> extends DefaultEdge {
     /**
      * Instantiates a new relationship edge.
      *
-     * @param t the t
+     * @param kind the kind
      */
-    public RelationshipEdge(String t) {
+    public RelationshipEdge(EdgeKind kind) {
         super();
-        this.type = t;
+        this.kind = kind;
     }
 
     /**
-     * Instantiates a new relationship edge.
+     * Instantiates a new control dependence edge.
      */
     public RelationshipEdge() {
-        super();
-        this.type = "CD";
+        this(EdgeKind.CONTROL);
+    }
+
+    /**
+     * Gets the kind.
+     *
+     * @return the kind
+     */
+    public EdgeKind getKind() {
+        return kind;
     }
 
     /* (non-Javadoc)
      * @see org.jgrapht.graph.DefaultEdge#toString()
      */
     @Override public String toString() {
-        return this.type;
+        return kind.getLabel();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package graphStructures;
+
+/**
+ * The Class SourceFile. The text of an analyzed file, shared by all of its graph nodes
+ * so that a node only keeps the range of its statement.
+ */
+public class SourceFile {
+
+    /** The tab size used by the parser when counting columns. */
+    private static final int TAB_SIZE = 8;
+
+    /** The text. */
+    private final String text;
+
+    /** The offset where each line starts, line 1 at index 0. */
+    private final int[] lineStarts;
+
+    /**
+     * Instantiates a new source file.
+     *
+     * @param text the text
+     */
+    public SourceFile(String text) {
+        this.text = text;
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) == '\n')
+                lines++;
+        lineStarts = new int[lines];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) == '\n')
+                lineStarts[line++] = i + 1;
+    }
+
+    /**
+     * Gets the text.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Converts a parser position to an offset in the text. The parser counts columns from 1
+     * and expands tabs to the next tab stop.
+     *
+     * @param line the line, from 1
+     * @param column the column, from 1
+     * @return the offset, clamped to the text
+     */
+    public int offset(int line, int column) {
+        if (line < 1)
+            return 0;
+        if (line > lineStarts.length)
+            return text.length();
+        int offset = lineStarts[line - 1];
+        int col = 1;
+        while (col < column && offset < text.length() && text.charAt(offset) != '\n') {
+            if (text.charAt(offset) == '\t')
+                col = ((col - 1) / TAB_SIZE + 1) * TAB_SIZE + 1;
+            else
+                col++;
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Gets a range of the text.
+     *
+     * @param offset the offset
+     * @param length the length
+     * @return the text in the range
+     */
+    public String text(int offset, int length) {
+        return text.substring(offset, Math.min(text.length(), offset + length));
+    }
+}
@@ -0,0 +1,196 @@
+package pdg;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * The Class AnalysisOptions. Settings of a {@link PDGCore}. The AST and symbol table dumps are
+ * debugging aids, off by default; when on, each file's dump is built in memory and written to the
+ * dump writer in one piece, so files analyzed concurrently do not interleave. The system dependence graph
+ * is off by default too. The last 32 files parsed are kept parsed.
+ */
+public class AnalysisOptions {
+
+    /** Whether the relevant AST nodes are dumped. */
+    private boolean dumpAst = false;
+
+    /** Whether the symbol table is dumped. */
+    private boolean dumpSymbolTable = false;
+
+    /** Whether the system dependence graph is built. */
+    private boolean sdg = false;
+
+    /** The number of files kept parsed. */
+    private int parseCacheSize = 32;
+
+    /** Whether the methods of a file are analyzed in parallel. */
+    private boolean parallelMethods = false;
+
+    /** Whether the flow edges are added by reaching definitions. */
+    private boolean reachingDefinitions = false;
+
+    /** The dump writer, standard output when not set. */
+    private Writer dumpWriter = null;
+
+    /**
+     * Checks if the AST is dumped.
+     *
+     * @return true, if the AST is dumped
+     */
+    public boolean isDumpAst() {
+        return dumpAst;
+    }
+
+    /**
+     * Sets whether the AST is dumped.
+     *
+     * @param dumpAst true to dump the AST
+     * @return these options
+     */
+    public AnalysisOptions setDumpAst(boolean dumpAst) {
+        this.dumpAst = dumpAst;
+        return this;
+    }
+
+    /**
+     * Checks if the symbol table is dumped.
+     *
+     * @return true, if the symbol table is dumped
+     */
+    public boolean isDumpSymbolTable() {
+        return dumpSymbolTable;
+    }
+
+    /**
+     * Sets whether the symbol table is dumped, along with the variable lookups made while checking.
+     *
+     * @param dumpSymbolTable true to dump the symbol table
+     * @return these options
+     */
+    public AnalysisOptions setDumpSymbolTable(boolean dumpSymbolTable) {
+        this.dumpSymbolTable = dumpSymbolTable;
+        return this;
+    }
+
+    /**
+     * Checks if the system dependence graph is built.
+     *
+     * @return true, if the system dependence graph is built
+     */
+    public boolean isSdg() {
+        return sdg;
+    }
+
+    /**
+     * Sets whether the system dependence graph is built: every call to a method of the same file gets a call edge
+     * to the method, parameter in edges from its arguments to the parameters, a return edge back to the call and
+     * the summary edges of the parameters the returned value depends on.
+     *
+     * @param sdg true to build the system dependence graph
+     * @return these options
+     */
+    public AnalysisOptions setSdg(boolean sdg) {
+        this.sdg = sdg;
+        return this;
+    }
+
+    /**
+     * Gets the number of files kept parsed.
+     *
+     * @return the number of files kept parsed
+     */
+    public int getParseCacheSize() {
+        return parseCacheSize;
+    }
+
+    /**
+     * Sets the number of files kept parsed, so analyzing one of them again with the same modification time and
+     * content skips the parsing. It is read when the core is created.
+     *
+     * @param parseCacheSize the number of files kept parsed, 0 to parse every file every time
+     * @return these options
+     */
+    public AnalysisOptions setParseCacheSize(int parseCacheSize) {
+        if (parseCacheSize < 0)
+            throw new IllegalArgumentException("negative parse cache size " + parseCacheSize);
+        this.parseCacheSize = parseCacheSize;
+        return this;
+    }
+
+    /**
+     * Checks if the methods of a file are analyzed in parallel.
+     *
+     * @return true, if the methods of a file are analyzed in parallel
+     */
+    public boolean isParallelMethods() {
+        return parallelMethods;
+    }
+
+    /**
+     * Sets whether the body of the methods of a file is analyzed in parallel on the common fork join pool, each
+     * method into its own graph, merged in the order of the file. The graph and the diagnostics are the same as
+     * when the file is analyzed in order. The methods are analyzed in order anyway when anything is dumped.
+     *
+     * @param parallelMethods true to analyze the methods of a file in parallel
+     * @return these options
+     */
+    public AnalysisOptions setParallelMethods(boolean parallelMethods) {
+        this.parallelMethods = parallelMethods;
+        return this;
+    }
+
+    /**
+     * Checks if the flow edges are added by reaching definitions.
+     *
+     * @return true, if the flow edges are added by reaching definitions
+     */
+    public boolean isReachingDefinitions() {
+        return reachingDefinitions;
+    }
+
+    /**
+     * Sets whether the flow edges are added by reaching definitions over the control flow graph of every method,
+     * constructor and initializer, instead of from every definition of a variable with the same name in the file.
+     * A use then only depends on the definitions that reach it, within its own body, and the definitions that reach
+     * it around a loop give its loop carried edges.
+     *
+     * @param reachingDefinitions true to add the flow edges by reaching definitions
+     * @return these options
+     */
+    public AnalysisOptions setReachingDefinitions(boolean reachingDefinitions) {
+        this.reachingDefinitions = reachingDefinitions;
+        return this;
+    }
+
+    /**
+     * Checks if anything is dumped.
+     *
+     * @return true, if any dump is on
+     */
+    public boolean isDumping() {
+        return dumpAst || dumpSymbolTable;
+    }
+
+    /**
+     * Gets the dump writer.
+     *
+     * @return the dump writer
+     */
+    public synchronized Writer getDumpWriter() {
+        if (dumpWriter == null)
+            dumpWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+        return dumpWriter;
+    }
+
+    /**
+     * Sets the dump writer. It is flushed after each file but never closed by the analysis.
+     *
+     * @param dumpWriter the dump writer
+     * @return these options
+     */
+    public synchronized AnalysisOptions setDumpWriter(Writer dumpWriter) {
+        this.dumpWriter = dumpWriter;
+        return this;
+    }
+}
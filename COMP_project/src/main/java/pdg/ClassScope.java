@@ -1,5 +1,7 @@
 package pdg;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 
 /**
@@ -18,4 +20,24 @@ class ClassScope extends Scope{
 	
 	/** The function table. */
 	Hashtable<String,String> funcTable = new Hashtable<>();
+	
+	/** The method scopes, by method name and number of parameters, the first declared of a name and number winning. */
+	HashMap<String,MethodScope> methods = new HashMap<>();
+	
+	/** The signatures of the methods, their name and parameter types, which a method must not repeat. */
+	HashSet<String> signatures = new HashSet<>();
+	
+	/** The order of the class among the classes and fields of the file, in the order they were declared. */
+	int order;
+	
+	/** The order of every field among the classes and fields of the file, by field name. */
+	HashMap<String,Integer> fieldOrders = new HashMap<>();
+	
+	/* (non-Javadoc)
+	 * @see pdg.Scope#declares(java.lang.String)
+	 */
+	@Override
+	boolean declares(String name) {
+		return fieldTable.containsKey(name);
+	}
 }
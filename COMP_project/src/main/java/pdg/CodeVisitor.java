@@ -0,0 +1,359 @@
+package pdg;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.ModifierSet;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import graphStructures.CompactGraph;
+import graphStructures.GraphNode;
+import graphStructures.SourceFile;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The Class CodeVisitor. Walks the AST of a file for {@link PDGCore}, checking its nodes against the symbol table
+ * and building its graph.
+ */
+class CodeVisitor extends VoidVisitorAdapter<Object> {
+    	
+    	/** The file name used in the diagnostics. */
+    	private final String fileName;
+    	
+    	/** The diagnostics listener. */
+    	private final DiagnosticsListener diagnostics;
+    	
+    	/** The number of semantic errors reported so far. */
+    	int errorCount = 0;
+    	
+    	SymbolTable st;
+    	
+    	/** The dump destination, only set when a dump is on. */
+    	PrintWriter out;
+    	
+    	/** Where the calls to classes the file does not declare go, null to report them as undeclared. */
+    	List<FileAnalysis.CrossFileCall> crossFileCalls;
+    	
+    	/** The methods left to analyze apart, in the order of the file, null when every node is analyzed in order. */
+    	private ArrayList<MethodTask> forks = null;
+    	
+    	/** The diagnostics kept until the methods analyzed apart are merged, null when reported at once. */
+    	private ArrayList<Diagnostic> pending = null;
+    	
+    	CodeVisitor(String fileName, int fileId, SourceFile source, DiagnosticsListener diagnostics){
+    		this.fileName = fileName;
+    		this.st = new SymbolTable(fileId, source);
+    		this.diagnostics = diagnostics;
+    	}
+    	
+    	/**
+    	 * Instantiates the visitor of a method analyzed apart, which keeps its diagnostics.
+    	 *
+    	 * @param parent the visitor of the file
+    	 * @param st the symbol table of the method
+    	 */
+    	private CodeVisitor(CodeVisitor parent, SymbolTable st){
+    		this.fileName = parent.fileName;
+    		this.st = st;
+    		this.diagnostics = parent.diagnostics;
+    		this.pending = new ArrayList<>();
+    	}
+    	
+    	/**
+    	 * The Class MethodTask. The body of a method, analyzed on the fork join pool.
+    	 */
+    	private final class MethodTask extends RecursiveAction {
+    		
+    		private static final long serialVersionUID = 1L;
+    		
+    		/** The method declaration. */
+    		private final Node method;
+    		
+    		/** The graph node of the method declaration. */
+    		private final GraphNode entry;
+    		
+    		/** The scopes the method is declared in, ending with its own. */
+    		private final ArrayList<Scope> ls;
+    		
+    		/** The fork of the symbol table. */
+    		final SymbolTable.Fork fork;
+    		
+    		/** The visitor of the method. */
+    		final CodeVisitor visitor;
+    		
+    		/** The number of diagnostics of the file when the method was forked. */
+    		final int diagnosticsMark;
+    		
+    		/**
+    		 * Instantiates a new method task.
+    		 *
+    		 * @param method the method declaration
+    		 * @param entry the graph node of the method declaration
+    		 * @param ls the scopes the method is declared in, ending with its own
+    		 * @param hrefGraph the graph built so far
+    		 */
+    		MethodTask(Node method, GraphNode entry, ArrayList<Scope> ls, CompactGraph hrefGraph) {
+    			this.method = method;
+    			this.entry = entry;
+    			this.ls = ls;
+    			this.fork = st.fork(hrefGraph);
+    			this.visitor = new CodeVisitor(CodeVisitor.this, fork.table);
+    			this.diagnosticsMark = pending.size();
+    		}
+    		
+    		/* (non-Javadoc)
+    		 * @see java.util.concurrent.RecursiveAction#compute()
+    		 */
+    		@Override
+    		protected void compute() {
+    			for(Node child : method.getChildrenNodes())
+    				visitor.semanticAnalysis(child, fork.graph, entry, ls);
+    			fork.table.solveReachingDefinitions();
+    		}
+    	}
+    	
+    	/**
+    	 * Analyzes a file with the body of its methods analyzed in parallel on the fork join pool, each into its own
+    	 * graph and symbol table, then merged in the order of the file. The classes, the fields and the declaration of
+    	 * the methods are analyzed first, in order, so each method sees what it would see in order. The methods that
+    	 * declare classes, methods or fields in their body are analyzed in order with the rest of the file.
+    	 *
+    	 * @param node the root node
+    	 * @param hrefGraph the href graph
+    	 * @param previousNode the previous node
+    	 */
+    	void parallelAnalysis(Node node, CompactGraph hrefGraph, GraphNode previousNode){
+    		CompactGraph graph = new CompactGraph();
+    		graph.addNode(previousNode);
+    		forks = new ArrayList<>();
+    		pending = new ArrayList<>();
+    		st.recordFlow();
+    		semanticAnalysis(node, graph, previousNode, new ArrayList<>());
+    		ForkJoinTask.invokeAll(forks);
+    		
+    		ArrayList<SymbolTable.Fork> tables = new ArrayList<>();
+    		ArrayList<Diagnostic> reported = new ArrayList<>();
+    		int from = 0;
+    		for(MethodTask task : forks) {
+    			tables.add(task.fork);
+    			reported.addAll(pending.subList(from, task.diagnosticsMark));
+    			reported.addAll(task.visitor.pending);
+    			errorCount += task.visitor.errorCount;
+    			from = task.diagnosticsMark;
+    		}
+    		reported.addAll(pending.subList(from, pending.size()));
+    		st.merge(graph, tables, hrefGraph);
+    		forks = null;
+    		pending = null;
+    		reported.forEach(diagnostics::report);
+    	}
+    	
+    	//SEMANTIC ANALYSIS
+    	/**
+    	 * Checks a node and every node under it, in the order of the file, and adds them to the graph. The walk keeps
+    	 * its own stack, so deeply nested code does not overflow the thread stack, and a single scope array, where the
+    	 * scopes a node opens stay until the walk leaves the node.
+    	 *
+    	 * @param root the node
+    	 * @param hrefGraph the href graph
+    	 * @param previousNode the graph node the node depends on
+    	 * @param ls the scope array, left as it was given
+    	 */
+    	void semanticAnalysis(Node root, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls){
+    		// the nodes left to check, with the graph node each depends on and the number of scopes it is in
+    		ArrayList<Node> nodes = new ArrayList<>();
+    		ArrayList<GraphNode> previousNodes = new ArrayList<>();
+    		int[] depths = new int[16];
+    		int rootDepth = ls.size();
+    		nodes.add(root);
+    		previousNodes.add(previousNode);
+    		depths[0] = rootDepth;
+    		while(!nodes.isEmpty()) {
+    			int top = nodes.size() - 1;
+    			Node node = nodes.remove(top);
+    			GraphNode nextNode = previousNodes.remove(top);
+    			// closes the scopes opened under the previous siblings of the node
+    			closeScopes(ls, depths[top]);
+    			
+    			if(relevant(node)) {
+    				GraphNode checked = st.SemanticNodeCheck(node, hrefGraph, nextNode, ls);
+    				String error = st.takeError();
+    				if(error != null) {
+    					reportError(node.getBeginLine(), error);
+    				}
+    				else {
+    					nextNode = checked;
+    					if(forks != null && nextNode != null && node instanceof MethodDeclaration && !st.nestsDeclarations(node)) {
+    						forks.add(new MethodTask(node, nextNode, new ArrayList<>(ls), hrefGraph));
+    						continue;
+    					}
+    				}
+    			}
+    			
+    			// the children go in reverse so they come out in the order of the file
+    			List<Node> children = node.getChildrenNodes();
+    			for(int i = children.size() - 1; i >= 0; i--) {
+    				if(nodes.size() == depths.length)
+    					depths = Arrays.copyOf(depths, depths.length * 2);
+    				depths[nodes.size()] = ls.size();
+    				nodes.add(children.get(i));
+    				previousNodes.add(nextNode);
+    			}
+    		}
+    		closeScopes(ls, rootDepth);
+    	}
+    	
+    	/**
+    	 * Closes the innermost scopes.
+    	 *
+    	 * @param ls the scope array
+    	 * @param depth the number of scopes left open
+    	 */
+    	private static void closeScopes(ArrayList<Scope> ls, int depth) {
+    		if(ls.size() > depth)
+    			ls.subList(depth, ls.size()).clear();
+    	}
+
+    	void reportUnresolvedCalls() {
+    		for(SymbolTable.MethodNode call : st.unresolvedCalls) {
+    			if(crossFileCalls != null && !st.declaresClass(call.classScope)) {
+    				crossFileCalls.add(new FileAnalysis.CrossFileCall(call.classScope, call.methodName,
+    						((MethodCallExpr) call.method).getArgs().size(), call.method.getBeginLine()));
+    				continue;
+    			}
+    			reportError(call.method.getBeginLine(), "error:Undeclared Method " + call.methodName + " in class " + call.classScope + "");
+    		}
+    	}
+
+    	private void reportError(int line, String error) {
+    		errorCount++;
+    		Diagnostic diagnostic = new Diagnostic(fileName, line, Diagnostic.Kind.SEMANTIC, error);
+    		if(pending != null)
+    			pending.add(diagnostic);
+    		else
+    			diagnostics.report(diagnostic);
+    	}
+
+		//AST PRINTING
+		void astPrint(Node child2){
+    		if(relevant(child2)) {
+    			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)){
+    				printMethodModifiers(child2);
+    				MethodType(child2);
+    				MethodName(child2);
+    			}
+    			else if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)){
+    				printClassIntModifiers(child2);
+    				ClassName(child2);
+    				ClassExtension(child2);
+    			}    		
+    			
+    			else{
+    				out.println("------------------------------------------------------------");
+    				out.println(child2.getClass());
+    				out.println(child2.toString());
+    			}
+    		}
+			child2.getChildrenNodes().forEach(this::astPrint);
+    	}
+
+		private boolean relevant(Node child2) {
+			return SymbolTable.relevant(child2);
+		}
+		
+		private void MethodType(Node child2){
+			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)) {
+					out.println("------------------------------------------------------------");
+					out.print("Method.Type\n"+((MethodDeclaration)child2).getType().toString()+"\n");
+			}
+		}
+		
+		private void MethodName(Node child2){
+			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)) {
+					out.println("------------------------------------------------------------");
+					out.print("Method.Name\n"+((MethodDeclaration)child2).getNameExpr()+"\n");
+			}
+		}
+			
+		private void ClassName(Node child2){ 
+			if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)) {
+					out.println("------------------------------------------------------------");
+					out.print("Class.Name\n"+((ClassOrInterfaceDeclaration)child2).getNameExpr()+"\n");
+			}
+		}
+		
+		private void ClassExtension(Node child2){ 
+			if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)) {
+					out.println("------------------------------------------------------------");
+					out.print("Class.ExtensionOf\n"+((ClassOrInterfaceDeclaration)child2).getExtends().toString()+"\n");
+			}
+		}
+			
+		private void printMethodModifiers(Node child2) {
+				if(ModifierSet.isPrivate(((MethodDeclaration) child2).getModifiers())){
+					out.println("------------------------------------------------------------");
+					out.print("Method.Modifier\nprivate\n");
+				}
+				if(ModifierSet.isPublic(((MethodDeclaration) child2).getModifiers())){
+					out.println("------------------------------------------------------------");
+					out.print("Method.Modifier\npublic\n");
+				}
+				if(ModifierSet.isStatic(((MethodDeclaration) child2).getModifiers())){
+					out.println("------------------------------------------------------------");
+					out.print("Method.Modifier\nstatic\n");    			
+				}
+    			if(ModifierSet.isStrictfp(((MethodDeclaration) child2).getModifiers())){
+    				out.println("------------------------------------------------------------");
+    				out.print("Method.Modifier\nstrictfp\n");
+				}
+    			if(ModifierSet.isSynchronized(((MethodDeclaration) child2).getModifiers())){
+    				out.println("------------------------------------------------------------");
+    				out.print("Method.Modifier\nsyncronized\n");
+				}
+    			if(ModifierSet.isTransient(((MethodDeclaration) child2).getModifiers())){
+    				out.println("------------------------------------------------------------");
+    				out.print("Method.Modifier\ntransient\n");
+    			}
+    			if(ModifierSet.isVolatile(((MethodDeclaration) child2).getModifiers())){
+    				out.println("------------------------------------------------------------");
+    				out.print("Method.Modifier\nvolatile\n");
+    			}
+    	}	
+		
+		private void printClassIntModifiers(Node child2) {
+			if(ModifierSet.isPrivate(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\nprivate\n");
+			}
+			if(ModifierSet.isPublic(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\npublic\n");
+			}
+			if(ModifierSet.isStatic(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\nstatic\n");    			
+			}
+			if(ModifierSet.isStrictfp(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\nstrictfp\n");
+			}
+			if(ModifierSet.isSynchronized(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\nsyncronized\n");
+			}
+			if(ModifierSet.isTransient(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\ntransient\n");
+			}
+			if(ModifierSet.isVolatile(((ClassOrInterfaceDeclaration) child2).getModifiers())){
+				out.println("------------------------------------------------------------");
+				out.print("ClassOrInterface.Modifier\nvolatile\n");
+			}
+	}
+}
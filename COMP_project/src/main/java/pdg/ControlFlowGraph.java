@@ -0,0 +1,647 @@
+package pdg;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.BreakStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ContinueStmt;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.EmptyStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.ForeachStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.LabeledStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchEntryStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.SynchronizedStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.stmt.TypeDeclarationStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The Class ControlFlowGraph. The control flow of the body of a method, a constructor or an initializer. Every
+ * statement is a point of the graph, keyed by its AST node, and so are the condition of every branch, loop and switch
+ * and every initialization and update of a for loop. An AST node nested in a point belongs to it, and the parameters
+ * belong to the entry. Breaks, continues and their labels are followed. Exceptions are approximated: every point of a
+ * try block may go to each of its catch clauses, and every point of the try block and the catch clauses to its finally
+ * block. Once built, the points are ordered in reverse postorder from the entry, and the edges that go back to a point
+ * on the walk are the back edges of the loops.
+ */
+final class ControlFlowGraph {
+
+    /** The entry point, keyed by the declaration. */
+    static final int ENTRY = 0;
+
+    /** The exit point. */
+    static final int EXIT = 1;
+
+    /** The Class Jump. A statement a break or a continue leaves. */
+    private static final class Jump {
+
+        /** The label, null when not labelled. */
+        final String label;
+
+        /** Whether it is a loop, which a continue goes back to. */
+        final boolean loop;
+
+        /** Whether it is a labelled block, which only a labelled break leaves. */
+        final boolean block;
+
+        /** The points that break out of it. */
+        final ArrayList<Integer> breaks = new ArrayList<>();
+
+        /** The points that continue it. */
+        final ArrayList<Integer> continues = new ArrayList<>();
+
+        /**
+         * Instantiates a new jump.
+         *
+         * @param label the label, null when not labelled
+         * @param loop whether it is a loop
+         * @param block whether it is a labelled block
+         */
+        Jump(String label, boolean loop, boolean block) {
+            this.label = label;
+            this.loop = loop;
+            this.block = block;
+        }
+    }
+
+    /** The AST node of every point, null for the exit and the joins. */
+    private final ArrayList<Node> nodes = new ArrayList<>();
+
+    /** The point of every AST node that has one. */
+    private final IdentityHashMap<Node, Integer> points = new IdentityHashMap<>();
+
+    /** The edge count. */
+    private int edgeCount = 0;
+
+    /** The source of every edge. */
+    private int[] sources = new int[16];
+
+    /** The target of every edge. */
+    private int[] targets = new int[16];
+
+    /** The statements a break or a continue may leave, innermost last. */
+    private final ArrayList<Jump> jumps = new ArrayList<>();
+
+    /** The label of the loop about to be built, null when not labelled. */
+    private String label = null;
+
+    /** The index of the first incoming and outgoing edge of every point, then the edges ordered by target and by source. */
+    private int[] inStarts, inEdges, outStarts, outEdges;
+
+    /** The points reached from the entry, in reverse postorder. */
+    private int[] order;
+
+    /** The back edges. */
+    private final BitSet backEdges = new BitSet();
+
+    /**
+     * Builds the control flow graph of a body.
+     *
+     * @param declaration the method, constructor or initializer declaration
+     */
+    ControlFlowGraph(Node declaration) {
+        point(declaration, new ArrayList<>());
+        point(null, new ArrayList<>());
+        join(statement(body(declaration), single(ENTRY)), EXIT);
+        index();
+    }
+
+    /**
+     * Checks if a node has a body of its own, whose control flow is apart from the code around it.
+     *
+     * @param node the node
+     * @return true, if it is a method, a constructor or an initializer declaration
+     */
+    static boolean isBody(Node node) {
+        return node instanceof MethodDeclaration || node instanceof ConstructorDeclaration || node instanceof InitializerDeclaration;
+    }
+
+    /**
+     * Gets the body a node is in.
+     *
+     * @param node the node
+     * @return the innermost method, constructor or initializer declaration around the node, null when none
+     */
+    static Node bodyOf(Node node) {
+        for(Node parent = node; parent != null; parent = parent.getParentNode())
+            if(isBody(parent))
+                return parent;
+        return null;
+    }
+
+    /**
+     * Gets the block of a declaration.
+     *
+     * @param declaration the declaration
+     * @return the block, null when it has none
+     */
+    private static BlockStmt body(Node declaration) {
+        if(declaration instanceof MethodDeclaration)
+            return ((MethodDeclaration) declaration).getBody();
+        if(declaration instanceof ConstructorDeclaration)
+            return ((ConstructorDeclaration) declaration).getBlock();
+        return ((InitializerDeclaration) declaration).getBlock();
+    }
+
+    /**
+     * Gets the point count.
+     *
+     * @return the point count
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Gets the point an AST node belongs to: its own, else the one of the closest node around it that has one.
+     *
+     * @param node the node, within the body
+     * @return the point
+     */
+    int pointOf(Node node) {
+        Node below = null;
+        for(Node parent = node; parent != null; below = parent, parent = parent.getParentNode()) {
+            // only statements, catch clauses and the declaration are looked up, the expressions between are many
+            if(!(parent instanceof Statement || parent instanceof CatchClause || isBody(parent)))
+                continue;
+            // the initializations and updates of a for loop and the resources of a try have points of their own
+            Integer point = below != null && (parent instanceof ForStmt || parent instanceof TryStmt) ? points.get(below) : null;
+            if(point == null)
+                point = points.get(parent);
+            if(point != null)
+                return point;
+        }
+        return ENTRY;
+    }
+
+    /**
+     * Gets the points reached from the entry, in reverse postorder.
+     *
+     * @return the points
+     */
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Gets the number of edges that come into a point.
+     *
+     * @param point the point
+     * @return the in degree
+     */
+    int inDegree(int point) {
+        return inStarts[point + 1] - inStarts[point];
+    }
+
+    /**
+     * Gets an edge that comes into a point.
+     *
+     * @param point the point
+     * @param i the index of the edge among those of the point
+     * @return the edge
+     */
+    int incomingEdge(int point, int i) {
+        return inEdges[inStarts[point] + i];
+    }
+
+    /**
+     * Gets the number of edges that leave a point.
+     *
+     * @param point the point
+     * @return the out degree
+     */
+    int outDegree(int point) {
+        return outStarts[point + 1] - outStarts[point];
+    }
+
+    /**
+     * Gets an edge that leaves a point.
+     *
+     * @param point the point
+     * @param i the index of the edge among those of the point
+     * @return the edge
+     */
+    int outgoingEdge(int point, int i) {
+        return outEdges[outStarts[point] + i];
+    }
+
+    /**
+     * Gets the source of an edge.
+     *
+     * @param edge the edge
+     * @return the source point
+     */
+    int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Gets the target of an edge.
+     *
+     * @param edge the edge
+     * @return the target point
+     */
+    int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Checks if an edge goes back to the head of a loop.
+     *
+     * @param edge the edge
+     * @return true, if it is a back edge
+     */
+    boolean isBackEdge(int edge) {
+        return backEdges.get(edge);
+    }
+
+    /**
+     * Gets the loops around every point, by the head of each loop. The loop of a head is the head and the points that
+     * reach the source of one of its back edges without going through the head.
+     *
+     * @return the heads of the loops around every point, by point
+     */
+    BitSet[] loops() {
+        int size = size();
+        BitSet[] loops = new BitSet[size];
+        for(int point = 0; point < size; point++)
+            loops[point] = new BitSet();
+        int[] stack = new int[size];
+        for(int edge = backEdges.nextSetBit(0); edge >= 0; edge = backEdges.nextSetBit(edge + 1)) {
+            int head = targets[edge];
+            loops[head].set(head);
+            int depth = 0;
+            if(!loops[sources[edge]].get(head)) {
+                loops[sources[edge]].set(head);
+                stack[depth++] = sources[edge];
+            }
+            // the walk goes back from the source and stops at the head, which is marked first
+            while(depth > 0) {
+                int point = stack[--depth];
+                for(int i = 0; i < inDegree(point); i++) {
+                    int source = sources[incomingEdge(point, i)];
+                    if(!loops[source].get(head)) {
+                        loops[source].set(head);
+                        stack[depth++] = source;
+                    }
+                }
+            }
+        }
+        return loops;
+    }
+
+    /**
+     * Adds the points of a statement.
+     *
+     * @param stmt the statement, null for none
+     * @param from the points the statement is reached from
+     * @return the points the next statement is reached from
+     */
+    private List<Integer> statement(Statement stmt, List<Integer> from) {
+        if(stmt == null || stmt instanceof EmptyStmt || stmt instanceof TypeDeclarationStmt)
+            return from;
+        if(stmt instanceof BlockStmt) {
+            List<Integer> frontier = from;
+            if(((BlockStmt) stmt).getStmts() != null)
+                for(Statement child : ((BlockStmt) stmt).getStmts())
+                    frontier = statement(child, frontier);
+            return frontier;
+        }
+        if(stmt instanceof IfStmt) {
+            IfStmt ifStmt = (IfStmt) stmt;
+            List<Integer> condition = single(point(ifStmt, from));
+            return merge(statement(ifStmt.getThenStmt(), condition), statement(ifStmt.getElseStmt(), condition));
+        }
+        if(stmt instanceof WhileStmt) {
+            int condition = point(stmt, from);
+            Jump jump = open(true, false);
+            join(statement(((WhileStmt) stmt).getBody(), single(condition)), condition);
+            close();
+            join(jump.continues, condition);
+            return merge(single(condition), jump.breaks);
+        }
+        if(stmt instanceof DoStmt) {
+            int head = point(null, from);
+            Jump jump = open(true, false);
+            List<Integer> body = statement(((DoStmt) stmt).getBody(), single(head));
+            close();
+            int condition = point(stmt, merge(body, jump.continues));
+            edge(condition, head);
+            return merge(single(condition), jump.breaks);
+        }
+        if(stmt instanceof ForStmt)
+            return forStatement((ForStmt) stmt, from);
+        if(stmt instanceof ForeachStmt) {
+            int head = point(stmt, from);
+            Jump jump = open(true, false);
+            join(statement(((ForeachStmt) stmt).getBody(), single(head)), head);
+            close();
+            join(jump.continues, head);
+            return merge(single(head), jump.breaks);
+        }
+        if(stmt instanceof SwitchStmt)
+            return switchStatement((SwitchStmt) stmt, from);
+        if(stmt instanceof TryStmt)
+            return tryStatement((TryStmt) stmt, from);
+        if(stmt instanceof LabeledStmt) {
+            Statement labelled = ((LabeledStmt) stmt).getStmt();
+            label = ((LabeledStmt) stmt).getLabel();
+            if(labelled instanceof WhileStmt || labelled instanceof DoStmt || labelled instanceof ForStmt || labelled instanceof ForeachStmt)
+                return statement(labelled, from);
+            Jump jump = open(false, true);
+            List<Integer> frontier = statement(labelled, from);
+            close();
+            return merge(frontier, jump.breaks);
+        }
+        if(stmt instanceof BreakStmt) {
+            Jump jump = find(((BreakStmt) stmt).getId(), false);
+            if(jump != null)
+                jump.breaks.addAll(from);
+            return new ArrayList<>();
+        }
+        if(stmt instanceof ContinueStmt) {
+            Jump jump = find(((ContinueStmt) stmt).getId(), true);
+            if(jump != null)
+                jump.continues.addAll(from);
+            return new ArrayList<>();
+        }
+        if(stmt instanceof ReturnStmt || stmt instanceof ThrowStmt) {
+            edge(point(stmt, from), EXIT);
+            return new ArrayList<>();
+        }
+        if(stmt instanceof SynchronizedStmt)
+            return statement(((SynchronizedStmt) stmt).getBlock(), single(point(stmt, from)));
+        // expressions, assertions and constructor calls
+        return single(point(stmt, from));
+    }
+
+    /**
+     * Adds the points of a for loop: the initializations, the condition, the body, then the updates back to the condition.
+     *
+     * @param stmt the statement
+     * @param from the points the statement is reached from
+     * @return the points the next statement is reached from
+     */
+    private List<Integer> forStatement(ForStmt stmt, List<Integer> from) {
+        List<Integer> frontier = from;
+        if(stmt.getInit() != null)
+            for(Expression init : stmt.getInit())
+                frontier = single(point(init, frontier));
+        int condition = point(stmt, frontier);
+        Jump jump = open(true, false);
+        List<Integer> body = statement(stmt.getBody(), single(condition));
+        close();
+        frontier = merge(body, jump.continues);
+        if(stmt.getUpdate() != null)
+            for(Expression update : stmt.getUpdate())
+                frontier = single(point(update, frontier));
+        join(frontier, condition);
+        return stmt.getCompare() == null ? jump.breaks : merge(single(condition), jump.breaks);
+    }
+
+    /**
+     * Adds the points of a switch: the selector goes to every entry, and each entry falls through to the next.
+     *
+     * @param stmt the statement
+     * @param from the points the statement is reached from
+     * @return the points the next statement is reached from
+     */
+    private List<Integer> switchStatement(SwitchStmt stmt, List<Integer> from) {
+        List<Integer> selector = single(point(stmt, from));
+        Jump jump = open(false, false);
+        List<Integer> frontier = new ArrayList<>();
+        boolean hasDefault = false;
+        if(stmt.getEntries() != null)
+            for(SwitchEntryStmt entry : stmt.getEntries()) {
+                hasDefault |= entry.getLabel() == null;
+                frontier = merge(selector, frontier);
+                if(entry.getStmts() != null)
+                    for(Statement child : entry.getStmts())
+                        frontier = statement(child, frontier);
+            }
+        close();
+        frontier = merge(frontier, jump.breaks);
+        return hasDefault ? frontier : merge(frontier, selector);
+    }
+
+    /**
+     * Adds the points of a try statement, with an edge to each catch clause from every point that may throw, and
+     * the finally block after everything else.
+     *
+     * @param stmt the statement
+     * @param from the points the statement is reached from
+     * @return the points the next statement is reached from
+     */
+    private List<Integer> tryStatement(TryStmt stmt, List<Integer> from) {
+        List<Integer> frontier = from;
+        if(stmt.getResources() != null)
+            for(VariableDeclarationExpr resource : stmt.getResources())
+                frontier = single(point(resource, frontier));
+        int first = nodes.size();
+        List<Integer> exits = new ArrayList<>(statement(stmt.getTryBlock(), frontier));
+        List<Integer> throwing = merge(frontier, range(first, nodes.size()));
+        if(stmt.getCatchs() != null)
+            for(CatchClause clause : stmt.getCatchs())
+                exits.addAll(statement(clause.getCatchBlock(), single(point(clause, throwing))));
+        if(stmt.getFinallyBlock() == null)
+            return exits;
+        int finallyHead = point(null, merge(exits, merge(frontier, range(first, nodes.size()))));
+        return statement(stmt.getFinallyBlock(), single(finallyHead));
+    }
+
+    /**
+     * Opens a statement that breaks and continues may leave, with the label given to it if any.
+     *
+     * @param loop whether it is a loop
+     * @param block whether it is a labelled block
+     * @return the jump
+     */
+    private Jump open(boolean loop, boolean block) {
+        Jump jump = new Jump(label, loop, block);
+        label = null;
+        jumps.add(jump);
+        return jump;
+    }
+
+    /**
+     * Closes the innermost statement that breaks and continues may leave.
+     */
+    private void close() {
+        jumps.remove(jumps.size() - 1);
+    }
+
+    /**
+     * Finds the statement a break or a continue leaves.
+     *
+     * @param target the label, null for the innermost loop, or switch for a break
+     * @param toContinue whether it is a continue
+     * @return the jump, null when there is none
+     */
+    private Jump find(String target, boolean toContinue) {
+        for(int i = jumps.size() - 1; i >= 0; i--) {
+            Jump jump = jumps.get(i);
+            if(target != null ? target.equals(jump.label) : !jump.block && (jump.loop || !toContinue))
+                return jump;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param node the AST node, null for a join
+     * @param from the points it is reached from
+     * @return the point
+     */
+    private int point(Node node, List<Integer> from) {
+        int point = nodes.size();
+        nodes.add(node);
+        if(node != null)
+            points.put(node, point);
+        join(from, point);
+        return point;
+    }
+
+    /**
+     * Adds an edge from each of some points to a point.
+     *
+     * @param from the points
+     * @param to the point
+     */
+    private void join(List<Integer> from, int to) {
+        for(int source : from)
+            edge(source, to);
+    }
+
+    /**
+     * Adds an edge.
+     *
+     * @param source the source point
+     * @param target the target point
+     */
+    private void edge(int source, int target) {
+        if(edgeCount == sources.length) {
+            sources = Arrays.copyOf(sources, edgeCount * 2);
+            targets = Arrays.copyOf(targets, edgeCount * 2);
+        }
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        edgeCount++;
+    }
+
+    /**
+     * Makes a list of one point.
+     *
+     * @param point the point
+     * @return the list
+     */
+    private static List<Integer> single(int point) {
+        ArrayList<Integer> list = new ArrayList<>();
+        list.add(point);
+        return list;
+    }
+
+    /**
+     * Makes a list of two lists of points.
+     *
+     * @param first the first points
+     * @param second the second points
+     * @return the list
+     */
+    private static List<Integer> merge(List<Integer> first, List<Integer> second) {
+        ArrayList<Integer> list = new ArrayList<>(first);
+        list.addAll(second);
+        return list;
+    }
+
+    /**
+     * Makes a list of consecutive points.
+     *
+     * @param from the first point
+     * @param to the point after the last one
+     * @return the list
+     */
+    private static List<Integer> range(int from, int to) {
+        ArrayList<Integer> list = new ArrayList<>();
+        for(int point = from; point < to; point++)
+            list.add(point);
+        return list;
+    }
+
+    /**
+     * Indexes the incoming and outgoing edges of every point in compressed sparse rows, then orders the points in
+     * reverse postorder with a walk from the entry, marking the edges that go back to a point still on the walk.
+     */
+    private void index() {
+        int size = nodes.size();
+        inStarts = new int[size + 1];
+        outStarts = new int[size + 1];
+        for(int edge = 0; edge < edgeCount; edge++) {
+            inStarts[targets[edge] + 1]++;
+            outStarts[sources[edge] + 1]++;
+        }
+        for(int point = 0; point < size; point++) {
+            inStarts[point + 1] += inStarts[point];
+            outStarts[point + 1] += outStarts[point];
+        }
+        inEdges = new int[edgeCount];
+        outEdges = new int[edgeCount];
+        int[] inNext = Arrays.copyOf(inStarts, size);
+        int[] outNext = Arrays.copyOf(outStarts, size);
+        for(int edge = 0; edge < edgeCount; edge++) {
+            inEdges[inNext[targets[edge]]++] = edge;
+            outEdges[outNext[sources[edge]]++] = edge;
+        }
+
+        // the walk keeps the next outgoing edge of every point on its stack
+        int[] postorder = new int[size];
+        int count = 0;
+        int[] stack = new int[size];
+        int[] next = new int[size];
+        BitSet visited = new BitSet(size);
+        BitSet onStack = new BitSet(size);
+        int depth = 0;
+        stack[depth++] = ENTRY;
+        visited.set(ENTRY);
+        onStack.set(ENTRY);
+        while(depth > 0) {
+            int point = stack[depth - 1];
+            if(next[point] < outDegree(point)) {
+                int edge = outgoingEdge(point, next[point]++);
+                int target = targets[edge];
+                if(onStack.get(target))
+                    backEdges.set(edge);
+                else if(!visited.get(target)) {
+                    visited.set(target);
+                    onStack.set(target);
+                    stack[depth++] = target;
+                }
+            }
+            else {
+                onStack.clear(point);
+                postorder[count++] = point;
+                depth--;
+            }
+        }
+        order = new int[count];
+        for(int i = 0; i < count; i++)
+            order[i] = postorder[count - 1 - i];
+    }
+}
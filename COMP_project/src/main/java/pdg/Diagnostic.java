@@ -0,0 +1,90 @@
+package pdg;
+
+/**
+ * The Class Diagnostic. A single message produced while analyzing a file.
+ */
+public final class Diagnostic {
+
+    /**
+     * The Enum Kind.
+     */
+    public enum Kind {
+
+        /** The file could not be parsed. */
+        SYNTAX,
+
+        /** The file was parsed but breaks a semantic rule. */
+        SEMANTIC
+    }
+
+    /** The file. */
+    private final String file;
+
+    /** The line, 0 when unknown. */
+    private final int line;
+
+    /** The kind. */
+    private final Kind kind;
+
+    /** The message. */
+    private final String message;
+
+    /**
+     * Instantiates a new diagnostic.
+     *
+     * @param file the file
+     * @param line the line, 0 when unknown
+     * @param kind the kind
+     * @param message the message
+     */
+    public Diagnostic(String file, int line, Kind kind, String message) {
+        this.file = file;
+        this.line = line;
+        this.kind = kind;
+        this.message = message;
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return the file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the line.
+     *
+     * @return the line, 0 when unknown
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the kind.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the message.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return file + ":" + line + ": " + message;
+    }
+}
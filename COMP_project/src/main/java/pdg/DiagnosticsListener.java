@@ -0,0 +1,24 @@
+package pdg;
+
+/**
+ * The Interface DiagnosticsListener. Receives the diagnostics of every analyzed file as soon as they are found.
+ * Implementations used by the batch analyzer are called from several threads.
+ */
+public interface DiagnosticsListener {
+
+    /**
+     * Reports a diagnostic.
+     *
+     * @param diagnostic the diagnostic
+     */
+    void report(Diagnostic diagnostic);
+
+    /**
+     * Called once the semantic analysis of a file is over.
+     *
+     * @param file the file
+     * @param semanticErrors the number of semantic errors reported for the file
+     */
+    default void fileAnalyzed(String file, int semanticErrors) {
+    }
+}
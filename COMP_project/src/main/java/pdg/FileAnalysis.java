@@ -0,0 +1,217 @@
+package pdg;
+
+import graphStructures.CompactGraph;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class FileAnalysis. What is kept of a file once analyzed for a {@link Project}: its graph, its own
+ * diagnostics, the methods it declares and the calls it makes to classes declared in other files.
+ * The AST is not kept, nothing after the analysis of the file needs it.
+ */
+public final class FileAnalysis {
+
+    /** The file name. */
+    private final String fileName;
+
+    /** The content hash. */
+    private final String contentHash;
+
+    /** The graph, null when the file could not be parsed. */
+    private final CompactGraph graph;
+
+    /** The diagnostics found in the file alone. */
+    private final List<Diagnostic> diagnostics;
+
+    /** The numbers of parameters of the declared methods, by class and method name. */
+    private final Map<String, Map<String, List<Integer>>> declaredMethods;
+
+    /** The calls to classes the file does not declare. */
+    private final List<CrossFileCall> crossFileCalls;
+
+    /**
+     * Instantiates a new file analysis.
+     *
+     * @param fileName the file name
+     * @param contentHash the content hash
+     * @param graph the graph, null when the file could not be parsed
+     * @param diagnostics the diagnostics found in the file alone
+     * @param declaredMethods the numbers of parameters of the declared methods, by class and method name
+     * @param crossFileCalls the calls to classes the file does not declare
+     */
+    FileAnalysis(String fileName, String contentHash, CompactGraph graph,
+                 List<Diagnostic> diagnostics, Map<String, Map<String, List<Integer>>> declaredMethods, List<CrossFileCall> crossFileCalls) {
+        this.fileName = fileName;
+        this.contentHash = contentHash;
+        this.graph = graph;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.declaredMethods = Collections.unmodifiableMap(declaredMethods);
+        this.crossFileCalls = Collections.unmodifiableList(crossFileCalls);
+    }
+
+    /**
+     * Gets the hash of a file content.
+     *
+     * @param content the content
+     * @return the SHA-256 of the content, in hexadecimal
+     */
+    public static String contentHash(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content))
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the file name.
+     *
+     * @return the file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets the content hash.
+     *
+     * @return the content hash
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Whether the file was parsed.
+     *
+     * @return true, if parsed
+     */
+    public boolean isParsed() {
+        return graph != null;
+    }
+
+    /**
+     * Gets a read-only JGraphT view of the graph.
+     *
+     * @return the graph, null when the file could not be parsed
+     */
+    @SuppressWarnings("rawtypes")
+    public DirectedGraph<GraphNode, RelationshipEdge> getGraph() {
+        return graph == null ? null : graph.asDirectedGraph();
+    }
+
+    /**
+     * Gets the graph as built by the analysis.
+     *
+     * @return the graph, null when the file could not be parsed
+     */
+    public CompactGraph getCompactGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the diagnostics found in the file alone.
+     *
+     * @return the diagnostics
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Gets the numbers of parameters of the declared methods, by class and method name.
+     *
+     * @return the declared methods
+     */
+    public Map<String, Map<String, List<Integer>>> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    /**
+     * Gets the calls to classes the file does not declare.
+     *
+     * @return the cross file calls
+     */
+    public List<CrossFileCall> getCrossFileCalls() {
+        return crossFileCalls;
+    }
+
+    /**
+     * The Class CrossFileCall. A call whose class is not declared in the calling file.
+     */
+    public static final class CrossFileCall {
+
+        /** The class name. */
+        private final String className;
+
+        /** The method name. */
+        private final String methodName;
+
+        /** The number of arguments. */
+        private final int arguments;
+
+        /** The line. */
+        private final int line;
+
+        /**
+         * Instantiates a new cross file call.
+         *
+         * @param className the class name
+         * @param methodName the method name
+         * @param arguments the number of arguments
+         * @param line the line
+         */
+        CrossFileCall(String className, String methodName, int arguments, int line) {
+            this.className = className;
+            this.methodName = methodName;
+            this.arguments = arguments;
+            this.line = line;
+        }
+
+        /**
+         * Gets the class name.
+         *
+         * @return the class name
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Gets the method name.
+         *
+         * @return the method name
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * Gets the number of arguments.
+         *
+         * @return the number of arguments
+         */
+        public int getArguments() {
+            return arguments;
+        }
+
+        /**
+         * Gets the line.
+         *
+         * @return the line
+         */
+        public int getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pdg;
+
+import graphExport.JsonGraphExporter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * The Class JsonLinesDiagnostics. Streams every diagnostic as one JSON object per line.
+ */
+public class JsonLinesDiagnostics implements DiagnosticsListener, Closeable {
+
+    /** The out. */
+    private final Writer out;
+
+    /**
+     * Instantiates a new JSON lines diagnostics writer.
+     *
+     * @param out the destination, buffered by this class
+     */
+    public JsonLinesDiagnostics(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /* (non-Javadoc)
+     * @see pdg.DiagnosticsListener#report(pdg.Diagnostic)
+     */
+    @Override
+    public synchronized void report(Diagnostic diagnostic) {
+        try {
+            out.write("{\"file\":");
+            JsonGraphExporter.writeString(diagnostic.getFile(), out);
+            out.write(",\"line\":");
+            out.write(Integer.toString(diagnostic.getLine()));
+            out.write(",\"kind\":\"");
+            out.write(diagnostic.getKind().name().toLowerCase());
+            out.write("\",\"message\":");
+            JsonGraphExporter.writeString(diagnostic.getMessage(), out);
+            out.write("}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -27,4 +27,12 @@ class LoopScope extends Scope{
 
 	/** The local variable table. */
 	Hashtable<String,String> localVarTable = new Hashtable<>();
+	
+	/* (non-Javadoc)
+	 * @see pdg.Scope#declares(java.lang.String)
+	 */
+	@Override
+	boolean declares(String name) {
+		return localVarTable.containsKey(name);
+	}
 }
@@ -1,7 +1,9 @@
 package pdg;
 
 import com.github.javaparser.ast.Node;
+import graphStructures.GraphNode;
 
+import java.util.ArrayList;
 import java.util.Hashtable;
 
 /**
@@ -26,4 +28,21 @@ class MethodScope extends Scope{
 	
 	/** The local variable table. */
 	Hashtable<String,String> localVarTable = new Hashtable<>();
+	
+	/** The graph node of the method declaration, the entry of the method. */
+	GraphNode entry;
+	
+	/** The formal in node of every parameter, in order, only in the system dependence graph. */
+	ArrayList<GraphNode> formalIns = new ArrayList<>();
+	
+	/** The formal out node of the returned value, null when not building the system dependence graph or the method returns nothing. */
+	GraphNode formalOut;
+	
+	/* (non-Javadoc)
+	 * @see pdg.Scope#declares(java.lang.String)
+	 */
+	@Override
+	boolean declares(String name) {
+		return paramTable.containsKey(name) || localVarTable.containsKey(name);
+	}
 }
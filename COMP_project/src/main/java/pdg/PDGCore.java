@@ -2,247 +2,278 @@ package pdg;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseException;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.body.ModifierSet;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import graphStructures.CompactGraph;
 import graphStructures.GraphNode;
-import graphStructures.RelationshipEdge;
-import graphStructures.ReturnObject;
-import org.jgrapht.DirectedGraph;
+import graphStructures.SourceFile;
 
-import javax.swing.*;
-import java.io.FileInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The Class PDGCore.
  */
 public class PDGCore {
 
+	/** The id given to each analyzed file, by file name. */
+	private final ConcurrentHashMap<String, Integer> fileIds = new ConcurrentHashMap<>();
+
+	/** The last given file id. */
+	private final AtomicInteger lastFileId = new AtomicInteger();
+
+	/** The options. */
+	private final AnalysisOptions options;
+
+	/** The files parsed lately. */
+	private final ParseCache parseCache;
+
+	/**
+	 * Instantiates a new PDG core with the default options.
+	 */
+	public PDGCore() {
+		this(new AnalysisOptions());
+	}
+
 	/**
 	 * Instantiates a new PDG core.
+	 *
+	 * @param options the options
 	 */
-	public PDGCore() {	}
+	public PDGCore(AnalysisOptions options) {
+		this.options = options;
+		this.parseCache = new ParseCache(options.getParseCacheSize());
+	}
 	
 	/**
 	 * Adds the file.
 	 *
-	 * @param inArg the in FileInputStram
-	 * @param hrefGraph the href graph
-	 * @param previousNode the previous node
-	 * @param consoleText the console text
-	 * @return true, if successful
-	 * @throws ParseException the parse exception
+	 * @param inArg the input stream, closed once parsed
+	 * @param fileName the file name used in the diagnostics
+	 * @param diagnostics the diagnostics listener
+	 * @return the graph of the file, starting at an Entry node, null when the file could not be parsed
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	public boolean addFile(FileInputStream inArg, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, GraphNode previousNode, JTextArea consoleText) throws ParseException, IOException {
-		CompilationUnit cu;
+	public CompactGraph addFile(InputStream inArg, String fileName, DiagnosticsListener diagnostics) throws IOException {
+		byte[] content;
 		try {
-		// parse the file
-			cu = JavaParser.parse(inArg);
+			content = readFully(inArg);
+		} finally {
 			inArg.close();
-		} catch(Exception e) {
-			consoleText.setText(consoleText.getText() + "Syntatic Error - " + e.getMessage() + "\n");
-			return false;
 		}
-		
-		CodeVisitor cv = new CodeVisitor();
+		return addFile(fileName, 0, content, diagnostics);
+	}
 
-		cv.astPrint(cu);
-		cv.semanticAnalysis(cu, hrefGraph, previousNode, new ArrayList<>());
-		SymbolTable st = cv.st;
-		
-		st.addDependencies(hrefGraph);
-
-		st.printSymbolTable();
-		//check for errors
-		if(cv.errorList.size()!=0){
-			cv.printSemanticErrors(consoleText);
-		} else {
-			consoleText.setText(consoleText.getText() + "No semantic errors were found\n");
-		}
-		return true;
+	/**
+	 * Adds a file read from the disk.
+	 *
+	 * @param file the file
+	 * @param diagnostics the diagnostics listener
+	 * @return the graph of the file, starting at an Entry node, null when the file could not be parsed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public CompactGraph addFile(Path file, DiagnosticsListener diagnostics) throws IOException {
+		return addFile(file.toString(), Files.getLastModifiedTime(file).toMillis(), Files.readAllBytes(file), diagnostics);
 	}
-	
-}
 
-    class CodeVisitor extends VoidVisitorAdapter<Object> {
-    	
-    	ArrayList<String> errorList = new ArrayList<>();
-    	SymbolTable st = new SymbolTable();
-    	
-    	CodeVisitor(){}
-    	
-    	//SEMANTIC ANALYSIS
-    	ArrayList<String> semanticAnalysis(Node node, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, GraphNode previousNode, ArrayList<Scope> ls){  		
-    		ReturnObject ret;
-    		GraphNode nextNode = previousNode;
-    		ArrayList<Scope> lastScopes = new ArrayList<>(ls);
-    			
-    		if(relevant(node)) {
-    			ret = st.SemanticNodeCheck(node, hrefGraph, previousNode, lastScopes);
-        		if(ret.hasError()) {	
-        			errorList.add(ret.getError());
-        		}
-        		else {
-        			nextNode = ret.getGraphNode();
-        		}
-    		}
-    		
-    		for(Node child: node.getChildrenNodes()){
-    			semanticAnalysis(child, hrefGraph, nextNode, lastScopes);
-    		}
-    		
-    			
-    		return errorList;
-    	}
-
-    	ArrayList<String> printSemanticErrors(JTextArea textArea) {
-    		
-    		ReturnObject ret;
-    		//add undefined methods error
-    		if(st.pendingMethodDeclarations.size()>0)
-				errorList.addAll(st.pendingMethodDeclarations.stream().map(undeclaredMethod -> "error:Undeclared Method " + undeclaredMethod.methodName + " in class " + undeclaredMethod.methodScope + "").collect(Collectors.toList()));
-    		//check method calls that were pending
-    		for(int i=0;i<st.pendingMethodNodes.size();i++){
-    			ret=st.postProcessMethodCallNode(st.pendingMethodNodes.get(i).method,st.pendingMethodNodes.get(i).classScope,st.pendingMethodNodes.get(i).methodName,st.pendingMethodNodes.get(i).callerMethod);
-    			if(ret.hasError()) {	
-        			errorList.add(ret.getError());
-        		}
-    		}
-	    	textArea.setText(textArea.getText() + "Semantic errors:\n");
-
-    		for(String error: errorList){
-    	    	textArea.setText(textArea.getText() + error + "\n");
-			}	    		
-	    	textArea.setText(textArea.getText() + "Ended semantic errors\n");
-    		return errorList;
-    	}
-
-		//AST PRINTING
-		void astPrint(Node child2){
-    		if(relevant(child2)) {
-    			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)){
-    				printMethodModifiers(child2);
-    				MethodType(child2);
-    				MethodName(child2);
-    			}
-    			else if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)){
-    				printClassIntModifiers(child2);
-    				ClassName(child2);
-    				ClassExtension(child2);
-    			}    		
-    			
-    			else{
-    				System.out.println("------------------------------------------------------------");
-    				System.out.println(child2.getClass());
-    				System.out.println(child2.toString());
-    			}
-    		}
-			child2.getChildrenNodes().forEach(this::astPrint);
-    	}
-
-		private boolean relevant(Node child2) {
-			return !child2.getClass().equals(com.github.javaparser.ast.body.VariableDeclarator.class) &&
-					!child2.getClass().equals(CompilationUnit.class)
-                    && !child2.getClass().equals(com.github.javaparser.ast.stmt.ExpressionStmt.class)
-                    && !child2.getClass().equals(com.github.javaparser.ast.stmt.BlockStmt.class)
-                    && !child2.getClass().equals(com.github.javaparser.ast.type.VoidType.class)
-                    && !child2.getClass().equals(com.github.javaparser.ast.type.ClassOrInterfaceType.class);
-		}
-		
-		private void MethodType(Node child2){
-			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)) {
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Method.Type\n"+((MethodDeclaration)child2).getType().toString()+"\n");
-			}
-		}
-		
-		private void MethodName(Node child2){
-			if(child2.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)) {
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Method.Name\n"+((MethodDeclaration)child2).getNameExpr()+"\n");
-			}
+	/**
+	 * Adds a file already read. The file is not parsed again when it was parsed lately with the same
+	 * modification time and content.
+	 *
+	 * @param fileName the file name used in the diagnostics
+	 * @param lastModified the modification time of the file, 0 when unknown
+	 * @param content the content of the file, UTF-8
+	 * @param diagnostics the diagnostics listener
+	 * @return the graph of the file, starting at an Entry node, null when the file could not be parsed
+	 * @throws IOException Signals that the dump could not be written.
+	 */
+	public CompactGraph addFile(String fileName, long lastModified, byte[] content, DiagnosticsListener diagnostics) throws IOException {
+		CompactGraph hrefGraph = new CompactGraph();
+		GraphNode entry = new GraphNode(0, "Entry");
+		hrefGraph.addNode(entry);
+		ParseCache.Entry parsed = parse(fileName, lastModified, content, FileAnalysis.contentHash(content), diagnostics);
+		if(parsed == null)
+			return null;
+		CodeVisitor cv = analyze(parsed, fileName, hrefGraph, entry, diagnostics, null);
+		diagnostics.fileAnalyzed(fileName, cv.errorCount);
+		return hrefGraph;
+	}
+
+	/**
+	 * Analyzes a file of a project into its own graph. Calls to classes the file does not declare are
+	 * kept in the result instead of being reported, the project resolves them against its other files.
+	 *
+	 * @param fileName the file name used in the diagnostics
+	 * @param content the content of the file, UTF-8
+	 * @return the analysis of the file
+	 * @throws IOException Signals that the dump could not be written.
+	 */
+	public FileAnalysis analyzeFile(String fileName, byte[] content) throws IOException {
+		String contentHash = FileAnalysis.contentHash(content);
+		CompactGraph hrefGraph = new CompactGraph();
+		GraphNode entry = new GraphNode(0, "Entry");
+		hrefGraph.addNode(entry);
+		ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+		ArrayList<FileAnalysis.CrossFileCall> crossFileCalls = new ArrayList<>();
+		ParseCache.Entry parsed = parse(fileName, 0, content, contentHash, diagnostics::add);
+		if(parsed == null)
+			return new FileAnalysis(fileName, contentHash, null, diagnostics, new HashMap<>(), crossFileCalls);
+		CodeVisitor cv = analyze(parsed, fileName, hrefGraph, entry, diagnostics::add, crossFileCalls);
+		return new FileAnalysis(fileName, contentHash, hrefGraph, diagnostics, cv.st.declaredMethods(), crossFileCalls);
+	}
+
+	/**
+	 * Parses a file, unless it was parsed lately with the same modification time and content.
+	 *
+	 * @param fileName the file name used in the diagnostics
+	 * @param lastModified the modification time of the file, 0 when unknown
+	 * @param content the content of the file, UTF-8
+	 * @param contentHash the content hash
+	 * @param diagnostics the diagnostics listener
+	 * @return the parsed file, null when it could not be parsed
+	 */
+	private ParseCache.Entry parse(String fileName, long lastModified, byte[] content, String contentHash, DiagnosticsListener diagnostics) {
+		ParseCache.Entry parsed = parseCache.get(fileName, lastModified, contentHash);
+		if(parsed != null)
+			return parsed;
+		// the graph nodes refer to the source file instead of copying their statements
+		SourceFile source = new SourceFile(new String(content, StandardCharsets.UTF_8));
+		CompilationUnit cu;
+		try {
+			// comments only show in the AST dump, attributing them to their nodes takes a third of the parsing
+			cu = JavaParser.parse(new StringReader(source.getText()), options.isDumpAst());
+		} catch(Exception e) {
+			int line = 0;
+			if(e instanceof ParseException && ((ParseException) e).currentToken != null && ((ParseException) e).currentToken.next != null)
+				line = ((ParseException) e).currentToken.next.beginLine;
+			diagnostics.report(new Diagnostic(fileName, line, Diagnostic.Kind.SYNTAX, e.getMessage()));
+			return null;
 		}
-			
-		private void ClassName(Node child2){ 
-			if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)) {
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Class.Name\n"+((ClassOrInterfaceDeclaration)child2).getNameExpr()+"\n");
-			}
+		parsed = new ParseCache.Entry(lastModified, contentHash, source, cu);
+		parseCache.put(fileName, parsed);
+		return parsed;
+	}
+
+	/**
+	 * Analyzes a parsed file.
+	 *
+	 * @param parsed the parsed file
+	 * @param fileName the file name used in the diagnostics
+	 * @param hrefGraph the href graph
+	 * @param previousNode the previous node
+	 * @param diagnostics the diagnostics listener
+	 * @param crossFileCalls where the calls to classes the file does not declare go, null to report them as undeclared
+	 * @return the visitor that analyzed the file
+	 * @throws IOException Signals that the dump could not be written.
+	 */
+	private CodeVisitor analyze(ParseCache.Entry parsed, String fileName, CompactGraph hrefGraph, GraphNode previousNode,
+			DiagnosticsListener diagnostics, List<FileAnalysis.CrossFileCall> crossFileCalls) throws IOException {
+		CompilationUnit cu = parsed.compilationUnit;
+		CodeVisitor cv = new CodeVisitor(fileName, fileId(fileName), parsed.source, diagnostics);
+		cv.crossFileCalls = crossFileCalls;
+		if(options.isSdg())
+			cv.st.callSites = new ArrayList<>();
+		if(options.isReachingDefinitions())
+			cv.st.accesses = new ArrayList<>();
+		StringWriter dump = null;
+		if(options.isDumping()) {
+			dump = new StringWriter();
+			cv.out = new PrintWriter(dump);
+			if(options.isDumpSymbolTable())
+				cv.st.dump = cv.out;
 		}
+
+		if(options.isDumpAst())
+			cv.astPrint(cu);
+		cv.st.declare(cu);
+		// the dumps are written as the nodes are checked, so they keep the order of the file
+		if(options.isParallelMethods() && !options.isDumping())
+			cv.parallelAnalysis(cu, hrefGraph, previousNode);
+		else
+			cv.semanticAnalysis(cu, hrefGraph, previousNode, new ArrayList<>());
+		SymbolTable st = cv.st;
 		
-		private void ClassExtension(Node child2){ 
-			if(child2.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)) {
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Class.ExtensionOf\n"+((ClassOrInterfaceDeclaration)child2).getExtends().toString()+"\n");
-			}
+		if(options.isReachingDefinitions())
+			st.addReachingDefinitions(hrefGraph);
+		else
+			st.addDependencies(hrefGraph);
+		if(options.isSdg())
+			st.addCallEdges(hrefGraph);
+		hrefGraph.trim();
+
+		if(options.isDumpSymbolTable())
+			st.printSymbolTable(cv.out);
+		cv.reportUnresolvedCalls();
+		if(dump != null)
+			writeDump(fileName, dump.toString());
+		return cv;
+	}
+
+	/**
+	 * Writes the dump of a file to the dump writer.
+	 *
+	 * @param fileName the file name
+	 * @param dump the dump
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void writeDump(String fileName, String dump) throws IOException {
+		Writer out = options.getDumpWriter();
+		synchronized(out) {
+			out.write("==== " + fileName + "\n");
+			out.write(dump);
+			out.flush();
 		}
-			
-		private void printMethodModifiers(Node child2) {
-				if(ModifierSet.isPrivate(((MethodDeclaration) child2).getModifiers())){
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Method.Modifier\nprivate\n");
-				}
-				if(ModifierSet.isPublic(((MethodDeclaration) child2).getModifiers())){
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Method.Modifier\npublic\n");
-				}
-				if(ModifierSet.isStatic(((MethodDeclaration) child2).getModifiers())){
-					System.out.println("------------------------------------------------------------");
-					System.out.print("Method.Modifier\nstatic\n");    			
-				}
-    			if(ModifierSet.isStrictfp(((MethodDeclaration) child2).getModifiers())){
-    				System.out.println("------------------------------------------------------------");
-    				System.out.print("Method.Modifier\nstrictfp\n");
-				}
-    			if(ModifierSet.isSynchronized(((MethodDeclaration) child2).getModifiers())){
-    				System.out.println("------------------------------------------------------------");
-    				System.out.print("Method.Modifier\nsyncronized\n");
-				}
-    			if(ModifierSet.isTransient(((MethodDeclaration) child2).getModifiers())){
-    				System.out.println("------------------------------------------------------------");
-    				System.out.print("Method.Modifier\ntransient\n");
-    			}
-    			if(ModifierSet.isVolatile(((MethodDeclaration) child2).getModifiers())){
-    				System.out.println("------------------------------------------------------------");
-    				System.out.print("Method.Modifier\nvolatile\n");
-    			}
-    	}	
-		
-		private void printClassIntModifiers(Node child2) {
-			if(ModifierSet.isPrivate(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\nprivate\n");
-			}
-			if(ModifierSet.isPublic(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\npublic\n");
-			}
-			if(ModifierSet.isStatic(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\nstatic\n");    			
-			}
-			if(ModifierSet.isStrictfp(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\nstrictfp\n");
-			}
-			if(ModifierSet.isSynchronized(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\nsyncronized\n");
-			}
-			if(ModifierSet.isTransient(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\ntransient\n");
-			}
-			if(ModifierSet.isVolatile(((ClassOrInterfaceDeclaration) child2).getModifiers())){
-				System.out.println("------------------------------------------------------------");
-				System.out.print("ClassOrInterface.Modifier\nvolatile\n");
-			}
 	}
+
+	/**
+	 * Reads a stream.
+	 *
+	 * @param in the input stream
+	 * @return the content
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while((read = in.read(buffer)) != -1)
+			bytes.write(buffer, 0, read);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Gets the id of a file, giving it the next free id when seen for the first time.
+	 *
+	 * @param fileName the file name
+	 * @return the file id, starting at 1
+	 */
+	int fileId(String fileName) {
+		return fileIds.computeIfAbsent(fileName, name -> lastFileId.incrementAndGet());
+	}
+
+	/**
+	 * Gets the name of a file from its id.
+	 *
+	 * @param fileId the file id
+	 * @return the file name, null when no file has this id
+	 */
+	public String fileName(int fileId) {
+		for(Map.Entry<String, Integer> file : fileIds.entrySet())
+			if(file.getValue() == fileId)
+				return file.getKey();
+		return null;
+	}
+	
 }
-    
@@ -0,0 +1,92 @@
+package pdg;
+
+import com.github.javaparser.ast.CompilationUnit;
+import graphStructures.SourceFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Class ParseCache. The compilation units of the files parsed lately, by file name, the least recently used
+ * going first once the cache is full. A file is parsed again as soon as its modification time or its content hash
+ * changes. The analysis only reads the compilation units, so every analysis of a file shares the cached one.
+ */
+final class ParseCache {
+
+    /**
+     * The Class Entry. A parsed file.
+     */
+    static final class Entry {
+
+        /** The modification time of the file, 0 when unknown. */
+        final long lastModified;
+
+        /** The content hash. */
+        final String contentHash;
+
+        /** The source file. */
+        final SourceFile source;
+
+        /** The compilation unit. */
+        final CompilationUnit compilationUnit;
+
+        /**
+         * Instantiates a new entry.
+         *
+         * @param lastModified the modification time of the file, 0 when unknown
+         * @param contentHash the content hash
+         * @param source the source file
+         * @param compilationUnit the compilation unit
+         */
+        Entry(long lastModified, String contentHash, SourceFile source, CompilationUnit compilationUnit) {
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.source = source;
+            this.compilationUnit = compilationUnit;
+        }
+    }
+
+    /** The entries, in access order. */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Instantiates a new parse cache.
+     *
+     * @param capacity the number of files kept, 0 to keep none
+     */
+    ParseCache(int capacity) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParseCache.Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets a parsed file.
+     *
+     * @param fileName the file name
+     * @param lastModified the modification time of the file, 0 when unknown
+     * @param contentHash the content hash
+     * @return the parsed file, null when the file was not parsed lately or changed since
+     */
+    synchronized Entry get(String fileName, long lastModified, String contentHash) {
+        Entry entry = entries.get(fileName);
+        if (entry == null || entry.lastModified != lastModified || !entry.contentHash.equals(contentHash))
+            return null;
+        return entry;
+    }
+
+    /**
+     * Keeps a parsed file, in place of the previous parse of the same file.
+     *
+     * @param fileName the file name
+     * @param entry the parsed file
+     */
+    synchronized void put(String fileName, Entry entry) {
+        entries.put(fileName, entry);
+    }
+}
@@ -0,0 +1,263 @@
+package pdg;
+
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The Class Project. Keeps the analysis of every file of a source tree, by content hash, so a file is
+ * analyzed again only when its content changes. Calls to classes declared in other files are resolved
+ * by the project: when the classes of a file change, only the files calling into those classes are
+ * resolved again, their own analysis is kept.
+ * <p>
+ * {@link #update} and {@link #remove} can be called from several threads at once; {@link #resolve}
+ * must be called once they are done, before the results are read.
+ */
+public class Project {
+
+    /** The core. */
+    private final PDGCore core;
+
+    /** The analysis of every file, by file name. */
+    private final ConcurrentHashMap<String, FileAnalysis> files = new ConcurrentHashMap<>();
+
+    /** The files added, changed or removed since the last resolve. */
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    /** The analysis of every file as of the last resolve. */
+    private final HashMap<String, FileAnalysis> resolved = new HashMap<>();
+
+    /** The files declaring each class. */
+    private final HashMap<String, TreeSet<String>> declaringFiles = new HashMap<>();
+
+    /** The files calling each class they do not declare. */
+    private final HashMap<String, HashSet<String>> callers = new HashMap<>();
+
+    /** The diagnostics of the cross file calls of each file. */
+    private final HashMap<String, List<Diagnostic>> crossFileDiagnostics = new HashMap<>();
+
+    /** The graph of the whole project, the graphs of all files under a shared entry node. */
+    @SuppressWarnings("rawtypes")
+    private final DirectedGraph<GraphNode, RelationshipEdge> graph = new DefaultDirectedGraph<>(RelationshipEdge.class);
+
+    /** The entry node. */
+    private final GraphNode entry = new GraphNode(0, "Entry");
+
+    /**
+     * Instantiates a new project.
+     *
+     * @param options the options
+     */
+    public Project(AnalysisOptions options) {
+        this.core = new PDGCore(options);
+        graph.addVertex(entry);
+    }
+
+    /**
+     * Analyzes a file again if its content changed.
+     *
+     * @param fileName the file name
+     * @param content the content, UTF-8
+     * @return true, if the file was analyzed
+     * @throws IOException Signals that the dump could not be written.
+     */
+    public boolean update(String fileName, byte[] content) throws IOException {
+        FileAnalysis current = files.get(fileName);
+        if (current != null && current.getContentHash().equals(FileAnalysis.contentHash(content)))
+            return false;
+        files.put(fileName, core.analyzeFile(fileName, content));
+        changed.add(fileName);
+        return true;
+    }
+
+    /**
+     * Removes a file.
+     *
+     * @param fileName the file name
+     * @return true, if the file was in the project
+     */
+    public boolean remove(String fileName) {
+        if (files.remove(fileName) == null)
+            return false;
+        changed.add(fileName);
+        return true;
+    }
+
+    /**
+     * Brings the project graph and the cross file calls up to date with the files changed since the last resolve.
+     *
+     * @return the files whose cross file calls were resolved again, sorted
+     */
+    public synchronized Set<String> resolve() {
+        HashSet<String> touchedClasses = new HashSet<>();
+        for (String fileName : changed) {
+            FileAnalysis old = resolved.remove(fileName);
+            if (old != null) {
+                touchedClasses.addAll(old.getDeclaredMethods().keySet());
+                unindex(old);
+            }
+            FileAnalysis analysis = files.get(fileName);
+            if (analysis != null) {
+                touchedClasses.addAll(analysis.getDeclaredMethods().keySet());
+                index(analysis);
+                resolved.put(fileName, analysis);
+            } else {
+                crossFileDiagnostics.remove(fileName);
+            }
+        }
+
+        TreeSet<String> toResolve = new TreeSet<>();
+        for (String fileName : changed)
+            if (resolved.containsKey(fileName))
+                toResolve.add(fileName);
+        for (String className : touchedClasses)
+            toResolve.addAll(callers.getOrDefault(className, new HashSet<>()));
+        for (String fileName : toResolve)
+            crossFileDiagnostics.put(fileName, resolveCalls(resolved.get(fileName)));
+        changed.clear();
+        return toResolve;
+    }
+
+    /**
+     * Adds a file to the indexes and to the project graph.
+     *
+     * @param analysis the analysis of the file
+     */
+    private void index(FileAnalysis analysis) {
+        for (String className : analysis.getDeclaredMethods().keySet())
+            declaringFiles.computeIfAbsent(className, c -> new TreeSet<>()).add(analysis.getFileName());
+        for (FileAnalysis.CrossFileCall call : analysis.getCrossFileCalls())
+            callers.computeIfAbsent(call.getClassName(), c -> new HashSet<>()).add(analysis.getFileName());
+        if (!analysis.isParsed())
+            return;
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> fileGraph = analysis.getGraph();
+        fileGraph.vertexSet().forEach(graph::addVertex);
+        for (RelationshipEdge<?> edge : fileGraph.edgeSet())
+            graph.addEdge(fileGraph.getEdgeSource(edge), fileGraph.getEdgeTarget(edge), new RelationshipEdge<>(edge.getKind()));
+    }
+
+    /**
+     * Removes a file from the indexes and from the project graph.
+     *
+     * @param analysis the analysis of the file
+     */
+    private void unindex(FileAnalysis analysis) {
+        for (String className : analysis.getDeclaredMethods().keySet()) {
+            TreeSet<String> declaring = declaringFiles.get(className);
+            declaring.remove(analysis.getFileName());
+            if (declaring.isEmpty())
+                declaringFiles.remove(className);
+        }
+        for (FileAnalysis.CrossFileCall call : analysis.getCrossFileCalls()) {
+            HashSet<String> calling = callers.get(call.getClassName());
+            if (calling != null && calling.remove(analysis.getFileName()) && calling.isEmpty())
+                callers.remove(call.getClassName());
+        }
+        if (!analysis.isParsed())
+            return;
+        for (GraphNode node : analysis.getGraph().vertexSet())
+            if (!node.equals(entry))
+                graph.removeVertex(node);
+    }
+
+    /**
+     * Resolves the cross file calls of a file against the classes of the other files.
+     *
+     * @param analysis the analysis of the file
+     * @return the diagnostics of the calls
+     */
+    private List<Diagnostic> resolveCalls(FileAnalysis analysis) {
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+        for (FileAnalysis.CrossFileCall call : analysis.getCrossFileCalls()) {
+            TreeSet<String> declaring = declaringFiles.get(call.getClassName());
+            List<Integer> parameters = null;
+            if (declaring != null)
+                parameters = resolved.get(declaring.first()).getDeclaredMethods().get(call.getClassName()).get(call.getMethodName());
+            if (parameters == null)
+                diagnostics.add(new Diagnostic(analysis.getFileName(), call.getLine(), Diagnostic.Kind.SEMANTIC,
+                        "error:Undeclared Method " + call.getMethodName() + " in class " + call.getClassName()));
+            else if (!parameters.contains(call.getArguments()))
+                diagnostics.add(new Diagnostic(analysis.getFileName(), call.getLine(), Diagnostic.Kind.SEMANTIC,
+                        "error:Method call of " + call.getMethodName() + " in class " + call.getClassName()
+                                + " has an invalid number of arguments(" + call.getArguments() + " instead of "
+                                + parameters.stream().map(String::valueOf).collect(Collectors.joining(" or ")) + ")"));
+        }
+        return diagnostics;
+    }
+
+    /**
+     * Reports the diagnostics of every file, sorted by file name, then tells the listener each parsed file was analyzed.
+     *
+     * @param listener the listener
+     */
+    public synchronized void report(DiagnosticsListener listener) {
+        for (String fileName : new TreeSet<>(resolved.keySet())) {
+            FileAnalysis analysis = resolved.get(fileName);
+            int semanticErrors = 0;
+            for (Diagnostic diagnostic : analysis.getDiagnostics()) {
+                listener.report(diagnostic);
+                if (diagnostic.getKind() == Diagnostic.Kind.SEMANTIC)
+                    semanticErrors++;
+            }
+            for (Diagnostic diagnostic : crossFileDiagnostics.getOrDefault(fileName, Collections.emptyList())) {
+                listener.report(diagnostic);
+                semanticErrors++;
+            }
+            if (analysis.isParsed())
+                listener.fileAnalyzed(fileName, semanticErrors);
+        }
+    }
+
+    /**
+     * Gets the analysis of a file.
+     *
+     * @param fileName the file name
+     * @return the analysis, null when the file is not in the project
+     */
+    public FileAnalysis getFile(String fileName) {
+        return files.get(fileName);
+    }
+
+    /**
+     * Gets the analysis of every file as of the last resolve.
+     *
+     * @return the analyses, by file name
+     */
+    public synchronized Map<String, FileAnalysis> getFiles() {
+        return Collections.unmodifiableMap(new HashMap<>(resolved));
+    }
+
+    /**
+     * Gets the name of a file from the file id of its graph nodes.
+     *
+     * @param fileId the file id
+     * @return the file name, null when unknown
+     */
+    public String getFileName(int fileId) {
+        return core.fileName(fileId);
+    }
+
+    /**
+     * Gets the graph of the whole project as of the last resolve. It is updated in place by {@link #resolve}.
+     *
+     * @return the project graph
+     */
+    @SuppressWarnings("rawtypes")
+    public DirectedGraph<GraphNode, RelationshipEdge> getGraph() {
+        return graph;
+    }
+}
@@ -0,0 +1,268 @@
+package pdg;
+
+import com.github.javaparser.ast.Node;
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The Class ReachingDefinitions. Finds the definitions of variables that reach every use in a body, over its control
+ * flow graph. Every definition gets a bit, every point generates the definitions it makes last and kills every other
+ * definition of the variables it defines, and the sets are iterated to a fixed point with a worklist taken in reverse
+ * postorder. A definition that reaches a use within an iteration of every loop around the use is a flow dependence,
+ * even when it goes around a loop the use is after. One that only reaches the use on the next iteration of a loop
+ * around it is loop carried. For that, every loop with a use in it is solved apart over its own points, the loops
+ * around it first.
+ */
+final class ReachingDefinitions {
+
+    /**
+     * The Class Access. A definition or a use of a variable.
+     */
+    static final class Access {
+
+        /** The AST node checked when the variable was accessed. */
+        final Node node;
+
+        /** The variable. */
+        final String variable;
+
+        /** The graph node that defines or uses the variable. */
+        final GraphNode graphNode;
+
+        /** Whether the variable is defined, else it is used. */
+        final boolean definition;
+
+        /**
+         * Instantiates a new access.
+         *
+         * @param node the AST node checked when the variable was accessed
+         * @param variable the variable
+         * @param graphNode the graph node that defines or uses the variable
+         * @param definition whether the variable is defined, else it is used
+         */
+        Access(Node node, String variable, GraphNode graphNode, boolean definition) {
+            this.node = node;
+            this.variable = variable;
+            this.graphNode = graphNode;
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * The Class Dependence. A definition that reaches a use.
+     */
+    static final class Dependence {
+
+        /** The graph node of the definition. */
+        final GraphNode definition;
+
+        /** The graph node of the use. */
+        final GraphNode use;
+
+        /** The kind, flow or loop carried. */
+        final EdgeKind kind;
+
+        /**
+         * Instantiates a new dependence.
+         *
+         * @param definition the graph node of the definition
+         * @param use the graph node of the use
+         * @param kind the kind, flow or loop carried
+         */
+        Dependence(GraphNode definition, GraphNode use, EdgeKind kind) {
+            this.definition = definition;
+            this.use = use;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Instantiates a new reaching definitions.
+     */
+    private ReachingDefinitions() {
+    }
+
+    /**
+     * Finds the definitions that reach the uses of a body. A use does not see the definitions made at its own point,
+     * unless they reach it around a loop.
+     *
+     * @param body the method, constructor or initializer declaration
+     * @param accesses the definitions and uses of variables in the body, in the order of the file
+     * @return the dependences, by use in the order of the accesses, then by definition
+     */
+    static List<Dependence> solve(Node body, List<Access> accesses) {
+        ControlFlowGraph cfg = new ControlFlowGraph(body);
+        int size = cfg.size();
+        int[] points = new int[accesses.size()];
+        // every definition gets a bit, the definitions of a variable make its mask
+        int[] definitions = new int[accesses.size()];
+        int definitionCount = 0;
+        HashMap<String, BitSet> masks = new HashMap<>();
+        for(int i = 0; i < points.length; i++) {
+            Access access = accesses.get(i);
+            // the accesses of a node come one after the other
+            points[i] = i > 0 && access.node == accesses.get(i - 1).node ? points[i - 1] : cfg.pointOf(access.node);
+            if(access.definition) {
+                masks.computeIfAbsent(access.variable, v -> new BitSet()).set(definitionCount);
+                definitions[definitionCount++] = i;
+            }
+        }
+        BitSet[] gen = new BitSet[size];
+        BitSet[] kill = new BitSet[size];
+        for(int d = 0; d < definitionCount; d++) {
+            int point = points[definitions[d]];
+            BitSet mask = masks.get(accesses.get(definitions[d]).variable);
+            if(gen[point] == null) {
+                gen[point] = new BitSet();
+                kill[point] = new BitSet();
+            }
+            gen[point].andNot(mask);
+            gen[point].set(d);
+            kill[point].or(mask);
+        }
+
+        BitSet[] in = fixedPoint(cfg, gen, kill, -1, null, null);
+        BitSet[] loops = cfg.loops();
+        BitSet[][] solved = new BitSet[size][];
+        ArrayList<Dependence> dependences = new ArrayList<>();
+        for(int i = 0; i < points.length; i++) {
+            Access use = accesses.get(i);
+            BitSet mask = masks.get(use.variable);
+            if(use.definition || mask == null || in[points[i]] == null)
+                continue;
+            BitSet reaching = (BitSet) in[points[i]].clone();
+            reaching.and(mask);
+            int head = innermost(loops[points[i]], loops, -1);
+            BitSet[] within = head < 0 || reaching.isEmpty() ? in : withinLoop(cfg, gen, kill, loops, in, solved, head);
+            for(int d = reaching.nextSetBit(0); d >= 0; d = reaching.nextSetBit(d + 1)) {
+                EdgeKind kind = within[points[i]].get(d) ? EdgeKind.FLOW : EdgeKind.LOOP_CARRIED;
+                dependences.add(new Dependence(accesses.get(definitions[d]).graphNode, use.graphNode, kind));
+            }
+        }
+        return dependences;
+    }
+
+    /**
+     * Gets the definitions that reach the points of a loop within an iteration of it and of every loop around it. They
+     * are solved over the loop, without its back edges, from the definitions that come in through its head, which
+     * reach the head within an iteration of the loops around it.
+     *
+     * @param cfg the control flow graph
+     * @param gen the definitions every point generates, null for none
+     * @param kill the definitions every point kills, null for none
+     * @param loops the heads of the loops around every point
+     * @param in the definitions that reach every point
+     * @param solved the loops solved so far, by head
+     * @param head the head of the loop
+     * @return the definitions that reach every point, null for the points out of the loop
+     */
+    private static BitSet[] withinLoop(ControlFlowGraph cfg, BitSet[] gen, BitSet[] kill, BitSet[] loops, BitSet[] in,
+                                       BitSet[][] solved, int head) {
+        if(solved[head] == null) {
+            int parent = innermost(loops[head], loops, head);
+            BitSet[] around = parent < 0 ? in : withinLoop(cfg, gen, kill, loops, in, solved, parent);
+            solved[head] = fixedPoint(cfg, gen, kill, head, loops, around);
+        }
+        return solved[head];
+    }
+
+    /**
+     * Finds the innermost of some loops, the one with the most loops around its head.
+     *
+     * @param heads the heads of the loops
+     * @param loops the heads of the loops around every point
+     * @param except a head left out, -1 for none
+     * @return the head of the innermost loop, -1 when there is none
+     */
+    private static int innermost(BitSet heads, BitSet[] loops, int except) {
+        int innermost = -1;
+        for(int head = heads.nextSetBit(0); head >= 0; head = heads.nextSetBit(head + 1))
+            if(head != except && (innermost < 0 || loops[head].cardinality() > loops[innermost].cardinality()))
+                innermost = head;
+        return innermost;
+    }
+
+    /**
+     * Iterates the definitions that reach every point to a fixed point, the points whose in set changes going back
+     * to the worklist, the first in reverse postorder taken first. Over a loop, the back edges of the loop are left
+     * out, and the definitions that come in from the points around the loop are those that leave them in the solution
+     * around it.
+     *
+     * @param cfg the control flow graph
+     * @param gen the definitions every point generates, null for none
+     * @param kill the definitions every point kills, null for none
+     * @param head the head of the loop solved over, -1 for the whole body
+     * @param loops the heads of the loops around every point, null for the whole body
+     * @param around the definitions that reach the points around the loop, null for the whole body
+     * @return the definitions that reach every point, null for the points not reached from the entry or out of the loop
+     */
+    private static BitSet[] fixedPoint(ControlFlowGraph cfg, BitSet[] gen, BitSet[] kill, int head, BitSet[] loops,
+                                       BitSet[] around) {
+        int size = cfg.size();
+        int[] order = cfg.order();
+        int[] ranks = new int[size];
+        Arrays.fill(ranks, -1);
+        BitSet[] in = new BitSet[size];
+        BitSet[] out = new BitSet[size];
+        BitSet worklist = new BitSet(order.length);
+        for(int rank = 0; rank < order.length; rank++) {
+            int point = order[rank];
+            ranks[point] = rank;
+            if(head < 0 || loops[point].get(head)) {
+                in[point] = new BitSet();
+                out[point] = new BitSet();
+                worklist.set(rank);
+            }
+        }
+        for(int rank = worklist.nextSetBit(0); rank >= 0; rank = worklist.nextSetBit(0)) {
+            worklist.clear(rank);
+            int point = order[rank];
+            BitSet reaching = in[point];
+            for(int i = 0; i < cfg.inDegree(point); i++) {
+                int edge = cfg.incomingEdge(point, i);
+                int source = cfg.getEdgeSource(edge);
+                if(point == head && cfg.isBackEdge(edge))
+                    continue;
+                if(out[source] != null)
+                    reaching.or(out[source]);
+                else if(around != null && around[source] != null)
+                    reaching.or(leaving(around[source], gen, kill, source));
+            }
+            BitSet leaving = leaving(reaching, gen, kill, point);
+            if(leaving.equals(out[point]))
+                continue;
+            out[point] = leaving;
+            for(int i = 0; i < cfg.outDegree(point); i++) {
+                int edge = cfg.outgoingEdge(point, i);
+                int target = cfg.getEdgeTarget(edge);
+                if(in[target] != null && !(target == head && cfg.isBackEdge(edge)))
+                    worklist.set(ranks[target]);
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Gets the definitions that leave a point.
+     *
+     * @param reaching the definitions that reach the point
+     * @param gen the definitions every point generates, null for none
+     * @param kill the definitions every point kills, null for none
+     * @param point the point
+     * @return the definitions that leave the point
+     */
+    private static BitSet leaving(BitSet reaching, BitSet[] gen, BitSet[] kill, int point) {
+        BitSet leaving = (BitSet) reaching.clone();
+        if(kill[point] != null) {
+            leaving.andNot(kill[point]);
+            leaving.or(gen[point]);
+        }
+        return leaving;
+    }
+}
@@ -1,7 +1,11 @@
 package pdg;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
+import graphStructures.GraphNode;
 import graphStructures.VarChanges;
 
 /**
@@ -9,9 +13,43 @@ import graphStructures.VarChanges;
  */
 class Scope {
 	
-	/** The var changes. */
-	ArrayList<VarChanges> varChanges = new ArrayList<>();
+	/** The graph nodes that define each variable in this scope. */
+	HashMap<String, ArrayList<GraphNode>> definitions = new HashMap<>();
 	
 	/** The var accesses. */
 	ArrayList<VarChanges> varAccesses = new ArrayList<>();
+	
+	/** The enclosing scope, null for a top level class. */
+	Scope parent;
+	
+	/**
+	 * Records a definition of a variable.
+	 *
+	 * @param gn the graph node that defines the variable
+	 * @param variable the variable
+	 */
+	void addDefinition(GraphNode gn, String variable) {
+		definitions.computeIfAbsent(variable, v -> new ArrayList<>()).add(gn);
+	}
+	
+	/**
+	 * Gets the definitions of a variable made in this scope.
+	 *
+	 * @param variable the variable
+	 * @return the graph nodes that define the variable
+	 */
+	List<GraphNode> definitionsOf(String variable) {
+		List<GraphNode> defs = definitions.get(variable);
+		return defs == null ? Collections.emptyList() : defs;
+	}
+	
+	/**
+	 * Checks if a variable, parameter or field is declared directly in this scope.
+	 *
+	 * @param name the name
+	 * @return true, if declared
+	 */
+	boolean declares(String name) {
+		return false;
+	}
 }
@@ -1,22 +1,48 @@
 package pdg;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.StringTokenizer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.NameExpr;
-import org.jgrapht.DirectedGraph;
+import com.github.javaparser.ast.expr.QualifiedNameExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
 
 import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.expr.AssignExpr;
 import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.type.VoidType;
+
+import graphStructures.CompactGraph;
+import graphStructures.EdgeKind;
 import graphStructures.GraphNode;
-import graphStructures.RelationshipEdge;
-import graphStructures.ReturnObject;
+import graphStructures.SourceFile;
 import graphStructures.VarChanges;
 
 /**
@@ -28,11 +54,41 @@ class SymbolTable {
     /** The scopes. */
     private ArrayList<Scope> scopes = new ArrayList<>();
     
-    /** The pending method declarations. */
-    ArrayList<Method> pendingMethodDeclarations = new ArrayList<>();
+    /** Every definition made in the file, by variable, in the order they were made. */
+    private HashMap<String, ArrayList<GraphNode>> definitions = new HashMap<>();
+    
+    /** The class scopes, by class name. Each class scope indexes its method scopes. */
+    private final HashMap<String, ClassScope> classes;
+    
+    /** The numbers of parameters of the methods declared in the file, by class and method name, collected before the analysis. */
+    private final HashMap<String, HashMap<String, List<Integer>>> declarations;
+    
+    /** The methods that declare a class, a method or a field in their body, collected before the analysis. */
+    private final Set<Node> nestingMethods;
+    
+    /** The number of classes and fields declared so far, which orders them. */
+    private int declarationCount = 0;
+    
+    /** The classes and fields ordered before this bound are seen, so a method analyzed apart only sees those declared before it. */
+    private int horizon = Integer.MAX_VALUE;
+    
+    /** The definitions and uses of variables, in order, kept instead of adding the flow edges at once, null when adding them. */
+    private ArrayList<FlowEvent> flowEvents = null;
+    
+    /** The calls to methods the file does not declare, reported or sent to the project once the file is analyzed. */
+    ArrayList<MethodNode> unresolvedCalls = new ArrayList<>();
     
-    /** The pending method nodes. */
-    ArrayList<MethodNode> pendingMethodNodes = new ArrayList<>();
+    /** The method calls made in the file, kept to build the system dependence graph, null when not building it. */
+    ArrayList<CallSite> callSites = null;
+    
+    /** The definitions and uses of variables, in order, kept to add the flow edges by reaching definitions, null when adding them by name. */
+    ArrayList<ReachingDefinitions.Access> accesses = null;
+    
+    /** The dependences of every body solved so far, by declaration. */
+    private final IdentityHashMap<Node, List<ReachingDefinitions.Dependence>> solved = new IdentityHashMap<>();
+    
+    /** The actual in node of every argument of the method calls, by argument. */
+    private final IdentityHashMap<Node, GraphNode> actualIns = new IdentityHashMap<>();
     
     /** The last class. */
     private ClassScope lastClass = null;
@@ -46,6 +102,82 @@ class SymbolTable {
     /** The last scope. */
     private Scope lastScope = null;
     
+    /** The error of the node being checked, null when it has none. */
+    private String error = null;
+    
+    /** The node being checked. */
+    private Node checkedNode = null;
+    
+    /** The destination of the variable lookups dump, null when not dumping. */
+    PrintWriter dump = null;
+    
+    /** The id of the analyzed file. */
+    private final int fileId;
+    
+    /** The analyzed file, referenced by every graph node. */
+    private final SourceFile source;
+    
+    /** The interned kind id of each AST node class. */
+    private static final ClassValue<Integer> nodeKinds = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return GraphNode.kindId(type.getSimpleName());
+        }
+    };
+    
+    /**
+     * The Interface NodeCheck. Semantic check and graph construction for one kind of AST node.
+     */
+    private interface NodeCheck {
+
+        /**
+         * Checks the node.
+         *
+         * @param st the symbol table
+         * @param node the node
+         * @param hrefGraph the href graph
+         * @param previousNode the previous node
+         * @param ls the scope array
+         * @return the graph node the children of the node depend on, null when there is none or the node has an error
+         */
+        GraphNode check(SymbolTable st, Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls);
+    }
+
+    /** The kind ids of the nodes only the system dependence graph has. */
+    private static final int FORMAL_IN = GraphNode.kindId("FormalIn"), FORMAL_OUT = GraphNode.kindId("FormalOut"),
+            ACTUAL_IN = GraphNode.kindId("ActualIn"), ACTUAL_OUT = GraphNode.kindId("ActualOut");
+
+    /** The check of each kind of AST node, nodes of other kinds are only traversed. */
+    private static final HashMap<Class<? extends Node>, NodeCheck> nodeChecks = new HashMap<>();
+
+    /** The AST node kinds that are not checked nor added to the graph. */
+    private static final HashSet<Class<? extends Node>> irrelevantNodes = new HashSet<>();
+
+    static {
+        nodeChecks.put(ClassOrInterfaceDeclaration.class, SymbolTable::checkClass);
+        nodeChecks.put(MethodDeclaration.class, SymbolTable::checkMethod);
+        nodeChecks.put(com.github.javaparser.ast.body.Parameter.class, SymbolTable::checkParameter);
+        nodeChecks.put(IfStmt.class, SymbolTable::checkIf);
+        nodeChecks.put(UnaryExpr.class, SymbolTable::checkUnary);
+        nodeChecks.put(BinaryExpr.class, SymbolTable::checkBinary);
+        nodeChecks.put(VariableDeclarationExpr.class, SymbolTable::checkVariableDeclaration);
+        nodeChecks.put(FieldDeclaration.class, SymbolTable::checkField);
+        nodeChecks.put(ForStmt.class, SymbolTable::checkLoop);
+        nodeChecks.put(DoStmt.class, SymbolTable::checkLoop);
+        nodeChecks.put(WhileStmt.class, SymbolTable::checkLoop);
+        nodeChecks.put(MethodCallExpr.class, SymbolTable::checkMethodCall);
+        nodeChecks.put(FieldAccessExpr.class, SymbolTable::checkFieldAccess);
+        nodeChecks.put(AssignExpr.class, SymbolTable::checkAssign);
+        nodeChecks.put(ReturnStmt.class, SymbolTable::checkReturnStmt);
+
+        irrelevantNodes.add(com.github.javaparser.ast.body.VariableDeclarator.class);
+        irrelevantNodes.add(com.github.javaparser.ast.CompilationUnit.class);
+        irrelevantNodes.add(com.github.javaparser.ast.stmt.ExpressionStmt.class);
+        irrelevantNodes.add(com.github.javaparser.ast.stmt.BlockStmt.class);
+        irrelevantNodes.add(com.github.javaparser.ast.type.VoidType.class);
+        irrelevantNodes.add(com.github.javaparser.ast.type.ClassOrInterfaceType.class);
+    }
+
     /**
      * The Class MethodNode.
      */
@@ -80,25 +212,122 @@ class SymbolTable {
     }
     
     /**
-     * The Class Method.
+     * The Class CallSite. A method call, kept to join it to the called method in the system dependence graph.
      */
-    class Method{
+    class CallSite {
+        
+        /** The method call. */
+        final Node method;
+        
+        /** The graph node of the call. */
+        final GraphNode node;
+        
+        /** The class scope. */
+        final String classScope;
         
         /** The method name. */
-        String methodName = null;
+        final String methodName;
         
-        /** The method scope. */
-        String methodScope = null;
+        /** The graph node that uses the returned value, null when the value is not used. */
+        final GraphNode use;
         
+        /** The actual in node of every argument, in order. */
+        final ArrayList<GraphNode> actualIns = new ArrayList<>();
+
         /**
-         * Instantiates a new method.
+         * Instantiates a new call site.
          *
-         * @param n the n
-         * @param s the s
+         * @param method the method call
+         * @param node the graph node of the call
+         * @param classScope the class scope
+         * @param methodName the method name
+         * @param use the graph node that uses the returned value
          */
-        Method(String n, String s){
-            methodName=n;
-            methodScope=s;
+        CallSite(Node method, GraphNode node, String classScope, String methodName, GraphNode use) {
+            this.method = method;
+            this.node = node;
+            this.classScope = classScope;
+            this.methodName = methodName;
+            this.use = use;
+        }
+    }
+    
+    /**
+     * The Class FlowEvent. A definition or a use of a variable, made while the flow edges are not added at once.
+     */
+    private static final class FlowEvent {
+        
+        /** The number of edges of the graph when the event was made. */
+        final int edges;
+        
+        /** The variable. */
+        final String variable;
+        
+        /** The graph node that defines or uses the variable. */
+        final GraphNode node;
+        
+        /** The id of the node in the graph the event was made in, -1 when not in it. */
+        final int localId;
+        
+        /** Whether the variable is defined, else it is used. */
+        final boolean definition;
+        
+        /** The id of the node in the merged graph, -1 when not in it. */
+        int id;
+
+        /**
+         * Instantiates a new flow event.
+         *
+         * @param hrefGraph the graph the event is made in
+         * @param variable the variable
+         * @param node the graph node that defines or uses the variable
+         * @param definition whether the variable is defined, else it is used
+         */
+        FlowEvent(CompactGraph hrefGraph, String variable, GraphNode node, boolean definition) {
+            this.edges = hrefGraph.getEdgeCount();
+            this.variable = variable;
+            this.node = node;
+            this.localId = hrefGraph.nodeId(node);
+            this.definition = definition;
+        }
+    }
+    
+    /**
+     * The Class Fork. The body of a method analyzed apart into its own graph and symbol table, with the size every
+     * list of the table it was forked from had then, which is where its results go once merged.
+     */
+    static final class Fork {
+        
+        /** The symbol table of the method. */
+        final SymbolTable table;
+        
+        /** The graph of the method, starting with the nodes of the declaration. */
+        final CompactGraph graph = new CompactGraph();
+        
+        /** The sizes of the graph, the flow events, the scopes, the call sites, the unresolved calls and the accesses it was forked from. */
+        final int nodes, edges, events, scopes, callSites, unresolvedCalls, accesses;
+        
+        /** The id of every node of the graph of the method in the merged graph. */
+        int[] ids;
+
+        /**
+         * Instantiates a new fork.
+         *
+         * @param parent the symbol table it is forked from
+         * @param hrefGraph the graph it is forked from
+         */
+        Fork(SymbolTable parent, CompactGraph hrefGraph) {
+            table = new SymbolTable(parent);
+            nodes = hrefGraph.getNodeCount();
+            edges = hrefGraph.getEdgeCount();
+            events = parent.flowEvents.size();
+            scopes = parent.scopes.size();
+            callSites = parent.callSites == null ? 0 : parent.callSites.size();
+            unresolvedCalls = parent.unresolvedCalls.size();
+            accesses = parent.accesses == null ? 0 : parent.accesses.size();
+            graph.addNode(parent.lastMethod.entry);
+            if(parent.lastMethod.formalOut != null)
+                graph.addNode(parent.lastMethod.formalOut);
         }
     }
     
@@ -175,8 +404,40 @@ class SymbolTable {
 
     /**
      * Instantiates a new symbol table.
+     *
+     * @param fileId the id of the analyzed file
+     * @param source the analyzed file
      */
-    SymbolTable(){}
+    SymbolTable(int fileId, SourceFile source){
+        this.fileId = fileId;
+        this.source = source;
+        this.classes = new HashMap<>();
+        this.declarations = new HashMap<>();
+        this.nestingMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Instantiates the symbol table of the method last declared in another one, which shares its classes and
+     * declarations, sees the classes and fields declared so far and keeps its flow events.
+     *
+     * @param parent the symbol table the method is declared in
+     */
+    private SymbolTable(SymbolTable parent){
+        this.fileId = parent.fileId;
+        this.source = parent.source;
+        this.classes = parent.classes;
+        this.declarations = parent.declarations;
+        this.nestingMethods = parent.nestingMethods;
+        this.horizon = parent.declarationCount;
+        this.lastClass = parent.lastClass;
+        this.lastMethod = parent.lastMethod;
+        this.lastScope = parent.lastScope;
+        this.flowEvents = new ArrayList<>();
+        if(parent.callSites != null)
+            this.callSites = new ArrayList<>();
+        if(parent.accesses != null)
+            this.accesses = new ArrayList<>();
+    }
 
     /**
      * Relevant.
@@ -184,30 +445,27 @@ class SymbolTable {
      * @param child2 the child2
      * @return true, if successful
      */
-    private boolean relevant(Node child2) {
-        return !child2.getClass().equals(com.github.javaparser.ast.body.VariableDeclarator.class) &&
-                !child2.getClass().equals(com.github.javaparser.ast.CompilationUnit.class) &&
-                !child2.getClass().equals(com.github.javaparser.ast.stmt.ExpressionStmt.class) &&
-                !child2.getClass().equals(com.github.javaparser.ast.stmt.BlockStmt.class) &&
-                !child2.getClass().equals(com.github.javaparser.ast.type.VoidType.class) &&
-                !child2.getClass().equals(com.github.javaparser.ast.type.ClassOrInterfaceType.class);
+    static boolean relevant(Node child2) {
+        return !irrelevantNodes.contains(child2.getClass());
     }
 
     /**
      * Prints the symbol table.
+     *
+     * @param out the destination
      */
-    void printSymbolTable(){
+    void printSymbolTable(PrintWriter out){
         for (Scope scope : scopes) {
-            System.out.println("SCOPE " + scope);
+            out.println("SCOPE " + scope);
             if (scope.getClass() == ClassScope.class) {
-                System.out.println(((ClassScope) scope).fieldTable.toString());
-                System.out.println(((ClassScope) scope).funcTable.toString());
+                out.println(((ClassScope) scope).fieldTable.toString());
+                out.println(((ClassScope) scope).funcTable.toString());
             }
             if (scope.getClass() == MethodScope.class) {
-                System.out.println(((MethodScope) scope).paramTable.toString());
-                System.out.println(((MethodScope) scope).localVarTable.toString());
+                out.println(((MethodScope) scope).paramTable.toString());
+                out.println(((MethodScope) scope).localVarTable.toString());
             }
-            if (scope.getClass() == LoopScope.class) System.out.println(((LoopScope) scope).localVarTable.toString());
+            if (scope.getClass() == LoopScope.class) out.println(((LoopScope) scope).localVarTable.toString());
         }
     }
 
@@ -231,6 +489,9 @@ class SymbolTable {
      */
     private boolean addClassScope(ClassScope cs, ArrayList<Scope> ls){
         if(!scopes.contains(cs)){
+            cs.parent = ls.isEmpty() ? null : ls.get(ls.size() - 1);
+            cs.order = declarationCount++;
+            classes.putIfAbsent(cs.Name, cs);
             scopes.add(cs);
             ls.add(cs);
             lastClass = cs;
@@ -259,6 +520,7 @@ class SymbolTable {
      * @param ls1 the scope array
      */
     private void addLoopScope(LoopScope ls, ArrayList<Scope> ls1){
+        ls.parent = ls1.get(ls1.size() - 1);
         scopes.add(ls);
         ls1.add(ls);
         lastLoop = ls;
@@ -286,8 +548,15 @@ class SymbolTable {
      * @return true, if successful
      */
     private boolean addMethodScope(MethodScope methodScp, ArrayList<Scope> ls){
-        if(!lastClass.funcTable.contains(methodScp.Name)){
+        List<com.github.javaparser.ast.body.Parameter> parameters = ((MethodDeclaration) methodScp.methodNode).getParameters();
+        StringBuilder signature = new StringBuilder(methodScp.Name).append('(');
+        for(com.github.javaparser.ast.body.Parameter parameter : parameters)
+            signature.append(parameter.getType()).append(',');
+        //overloads are told apart by their parameter types, the calls are resolved by their number of arguments
+        if(lastClass.signatures.add(signature.append(')').toString())){
             lastClass.funcTable.put(methodScp.Name, methodScp.Type);
+            lastClass.methods.putIfAbsent(methodKey(methodScp.Name, parameters.size()), methodScp);
+            methodScp.parent = lastClass;
             scopes.add(methodScp);
             ls.add(methodScp);
             lastMethod = methodScp;
@@ -298,194 +567,96 @@ class SymbolTable {
     }
 
     /**
-     * Check pending methods.
+     * Gets the key of a method in the method index of its class.
      *
-     * @param methodScp the method scope
+     * @param methodName the method name
+     * @param paramCount the number of parameters
+     * @return the key
      */
-    private void checkPendingMethods(MethodScope methodScp){
-        for(int i=0;i<pendingMethodDeclarations.size();i++){
-            if(methodScp.className.equals(pendingMethodDeclarations.get(i).methodScope))
-                if(methodScp.Name.equals(pendingMethodDeclarations.get(i).methodName)){
-                    pendingMethodDeclarations.remove(pendingMethodDeclarations.get(i));
-                }
-        }
+    private static String methodKey(String methodName, int paramCount){
+        return methodName + "/" + paramCount;
     }
 
     /**
      * Verify method arguments.
      *
      * @param node the node
-     * @param method the method
+     * @param className the class of the called method
+     * @param methodName the called method
+     * @param paramCounts the numbers of parameters of the overloads of the called method
      * @param callerMethod the caller method
-     * @return the string
+     * @return the error, null if the arguments are valid
      */
-    private String verifyMethodArguments(Node node,Method method,String callerMethod){
-        MethodScope methodScp = null;
-        //find MethodScope
-        for (Scope scope : scopes) {
-            if (scope.getClass().equals(MethodScope.class))
-                if (((MethodScope) scope).className.equals(method.methodScope))
-                    if (((MethodScope) scope).Name.equals(method.methodName))
-                        methodScp = ((MethodScope) scope);
-        }
-        if(!((MethodCallExpr)node).getArgs().isEmpty())
-            if(!methodScp.paramTable.isEmpty())
-                if(((MethodCallExpr)node).getArgs().size()!=methodScp.paramTable.size())
-                    return "error:Method call of "+methodScp.Name+" in class "+methodScp.className+" has an invalid number of arguments("+((MethodCallExpr)node).getArgs().size()+" instead of "+methodScp.paramTable.size()+")";
-
-        if(((MethodCallExpr)node).getArgs().isEmpty())
-            if(!methodScp.paramTable.isEmpty())
-                return "error:Method call of "+methodScp.Name+" in class "+methodScp.className+" has an invalid number of arguments(0 instead of "+methodScp.paramTable.size()+")";
-
-        if(methodScp.paramTable.isEmpty())
-            if(!((MethodCallExpr)node).getArgs().isEmpty())
-                return "error:Method call of "+methodScp.Name+" in class "+methodScp.className+" has an invalid number of arguments("+((MethodCallExpr)node).getArgs().size()+" instead of 0)";
-
-        ArrayList<String> undeclared=new ArrayList<>();
-
-        for(Node child: node.getChildrenNodes()){
-            boolean varFound=false;
-            if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
-                for (Scope scope : scopes) {
-                    if (scope.getClass().equals(LoopScope.class)) {
-                        if (((LoopScope) scope).MethodName.equals(callerMethod)) {
-                            if (((LoopScope) scope).ClassName.equals(lastClass.Name)) {
-                                if (((LoopScope) scope).localVarTable.containsKey(child.toString()))
-                                    System.out.println("PARENT " + node.getParentNode().toString());
-                                varFound = true;
-                            }
-                        }
-                    }
-
-                    if (scope.getClass().equals(MethodScope.class)) {
-                        if (((MethodScope) scope).Name.equals(callerMethod)) {
-                            if (((MethodScope) scope).paramTable.containsKey(child.toString()))
-                                //noinspection UnusedAssignment
-                                varFound = true;
-                            else if (((MethodScope) scope).localVarTable.containsKey(child.toString()))
-                                System.out.println("PARENT " + node.getParentNode().toString());
-                            varFound = true;
-                        }
-                    }
-                }
-                if(!varFound)
-                    undeclared.add(child.toString());
-            }
-        }
-
-        String returnString = "error:Variables with identifiers:";
-        undeclared=assignBinaryExpressionCheck(node);
-        System.out.println(undeclared.toString());
-        if(undeclared.size()>0){
-            for(int i=0;i<undeclared.size();i++){
-                if(i==0)
-                    returnString  = returnString.concat(undeclared.get(i)+" ");
-                else returnString  = returnString.concat("and " + undeclared.get(i))+ " ";
-                returnString = returnString.concat("in Method:"+callerMethod+" are not declared");
-            }
+    private String verifyMethodArguments(Node node, String className, String methodName, List<Integer> paramCounts, String callerMethod){
+        int argCount = ((MethodCallExpr)node).getArgs().size();
+        if(!paramCounts.contains(argCount))
+            return "error:Method call of "+methodName+" in class "+className+" has an invalid number of arguments("+argCount+" instead of "+
+                    paramCounts.stream().map(String::valueOf).collect(Collectors.joining(" or "))+")";
 
-            return returnString;
-        }
-        return "clear";
+        return undeclaredVariablesError(node, callerMethod);
     }
 
     /**
-     * Post process method call node.
+     * Process method call node. The called method is found from the AST of the call: its name, the class its
+     * scope names and its number of arguments.
      *
      * @param node the node
-     * @param scope the scope
-     * @param methodName the method name
-     * @param callerMethod the caller method
-     * @return the return object
-     */
-    ReturnObject postProcessMethodCallNode(Node node, String scope, String methodName, String callerMethod){
-        boolean methodFound=false;
-        Method method =new Method(methodName,scope);
-        //check if this method is defined
-        for (Scope scope1 : scopes) {
-            if (scope1.getClass() == ClassScope.class) {
-                if (((ClassScope) scope1).Name.equals(scope))
-                    if (((ClassScope) scope1).funcTable.containsKey(methodName))
-                        methodFound = true;
-            }
-        }
-
-        if(!methodFound)
-            return new ReturnObject("clear");
+     * @param callNode the graph node of the call
+     * @param hrefGraph the href graph
+     * @return the error, null if the call is valid
+     */
+    private String processMethodCallNode(Node node, GraphNode callNode, CompactGraph hrefGraph){
+        MethodCallExpr call = (MethodCallExpr) node;
+        String methodName = call.getName();
+        String classScope;
+        //if null, it's an user defined method of current Class scope
+        if(call.getScope() == null)
+            classScope = lastClass.Name;
         else{
-            String returnVal;
-            returnVal=verifyMethodArguments(node, method,callerMethod);
-            if(!returnVal.equals("clear"))
-                return new ReturnObject(returnVal);
+            classScope = callScope(call.getScope());
+            //ignore system method calls, and calls on a value whose class is not known
+            if(classScope == null || classScope.startsWith("System"))
+                return null;
         }
-        return new ReturnObject("clear");
+        addCallSite(node, callNode, classScope, methodName, hrefGraph);
+        //every method of the file is declared before the analysis, so a call is resolved where it is made
+        HashMap<String, List<Integer>> methods = declarations.get(classScope);
+        List<Integer> paramCounts = methods == null ? null : methods.get(methodName);
+        if(paramCounts == null){
+            unresolvedCalls.add(new MethodNode(node, classScope, methodName, lastMethod.Name));
+            return null;
+        }
+        return verifyMethodArguments(node, classScope, methodName, paramCounts, lastMethod.Name);
     }
 
     /**
-     * Process method call node.
+     * Gets the class a method call is made on from the scope of the call: the current class for this, the
+     * enclosing class for Outer.this, else the name or the qualified name the scope spells. A name that is a
+     * variable, a parameter or a field in scope is a value, such as a StringBuilder, not a class.
      *
-     * @param node the node
-     * @return the return object
-     */
-    private ReturnObject processMethodCallNode(Node node){
-        if(((MethodCallExpr)node).getScope()!=null){
-            StringTokenizer stock = new StringTokenizer(node.toString(),".");
-            boolean methodFound=false;
-            String method;
-            stock.nextToken();
-            method = stock.nextToken();
-            stock = new StringTokenizer(method,"(");
-            method = stock.nextToken();
-            //ignore system method Calls
-            if(!((MethodCallExpr)node).getScope().toString().startsWith("System")){
-                String classScope;
-                if(((MethodCallExpr)node).getScope().toString().startsWith("this"))
-                    classScope=lastClass.Name;
-                else classScope=((MethodCallExpr)node).getScope().toString();
-                Method methodWithScope = new Method(method,classScope);
-                //check if this method is defined and determine nr of args
-                for (Scope scope : scopes) {
-                    if (scope.getClass() == ClassScope.class) {
-                        if (((ClassScope) scope).Name.equals(classScope))
-                            if (((ClassScope) scope).funcTable.containsKey(method))
-                                methodFound = true;
-                    }
-                }
-                if(!methodFound){
-                    pendingMethodDeclarations.add(methodWithScope);
-                    pendingMethodNodes.add(new MethodNode(node,classScope,method,lastMethod.Name));
-                }
-                else{
-                    String returnVal;
-                    returnVal=verifyMethodArguments(node, methodWithScope,lastMethod.Name);
-                    if(!returnVal.equals("clear"))
-                        return new ReturnObject(returnVal);
-                }
-
-            }
+     * @param scope the scope of the call
+     * @return the class name, null when the call is made on a variable or the value of another expression
+     */
+    private String callScope(Expression scope){
+        if(scope instanceof ThisExpr)
+            return ((ThisExpr) scope).getClassExpr() == null ? lastClass.Name : callScope(((ThisExpr) scope).getClassExpr());
+        if(scope instanceof QualifiedNameExpr){
+            String qualifier = callScope(((QualifiedNameExpr) scope).getQualifier());
+            return qualifier == null ? null : qualifier + "." + ((QualifiedNameExpr) scope).getName();
         }
-
-        //if not null, it's not an user defined method of current Class scope
-        if(((MethodCallExpr)node).getScope()==null){
-            boolean methodFound=false;
-            StringTokenizer stock = new StringTokenizer(node.toString(),"(");
-            String methodName=stock.nextToken();
-            System.out.println(methodName);
-            Method method =new Method(methodName,lastClass.Name);
-            if(lastClass.funcTable.containsKey(methodName))
-                methodFound=true;
-            if(!methodFound){
-                pendingMethodDeclarations.add(method);
-                pendingMethodNodes.add(new MethodNode(node,lastClass.Name,methodName,lastMethod.Name));
-            }
-            else{
-                String returnVal;
-                returnVal=verifyMethodArguments(node, method,lastMethod.Name);
-                if(!returnVal.equals("clear"))
-                    return new ReturnObject(returnVal);
+        if(scope instanceof NameExpr){
+            String name = ((NameExpr) scope).getName();
+            //a variable, a parameter or a field holds a value whose class is not known, unless a class of the file has its name
+            return isDeclared(name) && !declaresClass(name) ? null : name;
+        }
+        if(scope instanceof FieldAccessExpr){
+            Expression qualifier = ((FieldAccessExpr) scope).getScope();
+            if(qualifier instanceof NameExpr || qualifier instanceof FieldAccessExpr){
+                String qualifierName = callScope(qualifier);
+                return qualifierName == null ? null : qualifierName + "." + ((FieldAccessExpr) scope).getField();
             }
         }
-        return new ReturnObject("clear");
+        return null;
     }
 
     /**
@@ -562,15 +733,15 @@ class SymbolTable {
      * @return true, if successful
      */
     private boolean putVariable(Variable var){
-        if(lastScope.equals(lastMethod)){
-            if(!lastMethod.localVarTable.containsKey(var.varName)){
-                lastMethod.localVarTable.put(var.varName, var.varType);
+        if(lastScope instanceof MethodScope){
+            if(!((MethodScope) lastScope).localVarTable.containsKey(var.varName)){
+                ((MethodScope) lastScope).localVarTable.put(var.varName, var.varType);
                 return true;
             }
         }
-        else if(lastScope.equals(lastLoop)){
-            if(!lastLoop.localVarTable.containsKey(var.varName)){
-                lastLoop.localVarTable.put(var.varName, var.varType);
+        else if(lastScope instanceof LoopScope){
+            if(!((LoopScope) lastScope).localVarTable.containsKey(var.varName)){
+                ((LoopScope) lastScope).localVarTable.put(var.varName, var.varType);
                 return true;
             }
         }
@@ -602,6 +773,7 @@ class SymbolTable {
         }
         if(!lastClass.fieldTable.containsKey(fld.fieldName)){
             lastClass.fieldTable.put(fld.fieldName, fld.fieldType);
+            lastClass.fieldOrders.put(fld.fieldName, declarationCount++);
             return true;
         }
         return false;
@@ -614,27 +786,10 @@ class SymbolTable {
      * @return the array list
      */
     private ArrayList<String> assignBinaryExpressionCheck(Node node){
-        boolean varFound=false;
         ArrayList<String> undeclared = new ArrayList<>();
         for(Node child: node.getChildrenNodes()){
             if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
-                if(lastMethod.paramTable.containsKey(child.toString()))
-                    varFound=true;
-                else if(lastMethod.localVarTable.containsKey(child.toString()))
-                    varFound=true;
-                else if(lastClass.fieldTable.containsKey(child.toString()))
-                    varFound=true;
-                for (Scope scope : scopes) {
-                    if (scope.getClass().equals(LoopScope.class)) {
-                        if (((LoopScope) scope).MethodName.equals(lastMethod.Name)) {
-                            if (((LoopScope) scope).ClassName.equals(lastClass.Name)) {
-                                if (((LoopScope) scope).localVarTable.containsKey(child.toString()))
-                                    varFound = true;
-                            }
-                        }
-                    }
-                }
-                if(!varFound){
+                if(!isDeclared(((NameExpr) child).getName())){
                     undeclared.add(child.toString());
                 }
             }
@@ -642,13 +797,119 @@ class SymbolTable {
         return undeclared;
     }
 
+    /**
+     * Checks if a name is declared in the current scope or in one of its enclosing scopes.
+     *
+     * @param name the name
+     * @return true, if declared
+     */
+    private boolean isDeclared(String name){
+        for(Scope scope = lastScope; scope != null; scope = scope.parent)
+            if(scope instanceof ClassScope ? declaresField((ClassScope) scope, name) : scope.declares(name))
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks if a class declares a field, before the current method when it is analyzed apart.
+     *
+     * @param classScp the class scope
+     * @param name the field name
+     * @return true, if declared
+     */
+    private boolean declaresField(ClassScope classScp, String name){
+        Integer order = classScp.fieldOrders.get(name);
+        return order != null && order < horizon;
+    }
+
+    /**
+     * Checks if a method declares a class, a method or a field in its body.
+     *
+     * @param method the method declaration
+     * @return true, if it does
+     */
+    boolean nestsDeclarations(Node method){
+        return nestingMethods.contains(method);
+    }
+
+    /**
+     * Collects the numbers of parameters of the methods the file declares, by class and method name, before the
+     * analysis, so every call is resolved where it is made, even to a method declared further down. A method
+     * belongs to the class declared last before it, as for the analysis, and the first class of a name wins. The
+     * overloads of a method keep their numbers of parameters in the order they are declared. The methods with
+     * declarations in their body are collected on the way.
+     *
+     * @param root the root of the AST
+     */
+    void declare(Node root){
+        ArrayList<Node> stack = new ArrayList<>();
+        stack.add(root);
+        HashMap<String, List<Integer>> methods = null;
+        while(!stack.isEmpty()){
+            Node node = stack.remove(stack.size() - 1);
+            if(node instanceof ClassOrInterfaceDeclaration){
+                methods = new HashMap<>();
+                declarations.putIfAbsent(((ClassOrInterfaceDeclaration) node).getName(), methods);
+            }
+            else if(node instanceof MethodDeclaration && methods != null){
+                List<Integer> paramCounts = methods.computeIfAbsent(((MethodDeclaration) node).getName(), name -> new ArrayList<>());
+                int paramCount = ((MethodDeclaration) node).getParameters().size();
+                if(!paramCounts.contains(paramCount))
+                    paramCounts.add(paramCount);
+            }
+            if(node instanceof BodyDeclaration)
+                for(Node parent = node.getParentNode(); parent != null; parent = parent.getParentNode())
+                    if(parent instanceof MethodDeclaration)
+                        nestingMethods.add(parent);
+            // the children go in reverse so they come out in the order of the file
+            List<Node> children = node.getChildrenNodes();
+            for(int i = children.size() - 1; i >= 0; i--)
+                stack.add(children.get(i));
+        }
+    }
+
+    /**
+     * Checks if a class is declared in the file.
+     *
+     * @param className the class name
+     * @return true, if declared
+     */
+    boolean declaresClass(String className){
+        return declarations.containsKey(className);
+    }
+
+    /**
+     * Gets the numbers of parameters of the methods declared in the file, by class and method name.
+     *
+     * @return the declared methods
+     */
+    HashMap<String, Map<String, List<Integer>>> declaredMethods(){
+        return new HashMap<>(declarations);
+    }
+
+    /**
+     * Finds a method scope through the class index. Of the overloads with as many parameters, the first declared
+     * is found.
+     *
+     * @param className the class name
+     * @param methodName the method name
+     * @param paramCount the number of parameters
+     * @return the method scope, null if the class or the method is not declared
+     */
+    private MethodScope findMethod(String className, String methodName, int paramCount){
+        ClassScope classScp = classes.get(className);
+        if(classScp == null)
+            return null;
+        return classScp.methods.get(methodKey(methodName, paramCount));
+    }
+
     /**
      * Check return.
      *
      * @param node the node
-     * @return the return object
+     * @return the error, null if the returned value is valid
      */
-    private ReturnObject checkReturn(Node node){
+    private String checkReturn(Node node){
 
         int i=0;
         boolean varFound = false;
@@ -657,18 +918,18 @@ class SymbolTable {
             if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
                 if(lastMethod.paramTable.containsKey(child.toString())){
                     if(!lastMethod.paramTable.get(child.toString()).equals(lastMethod.Type)){
-                        return  new ReturnObject("error:Type of return value -"+lastMethod.paramTable.get(child.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"");
+                        return "error:Type of return value -"+lastMethod.paramTable.get(child.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"";
                     }
                     varFound=true;
                 }
                 if(lastMethod.localVarTable.containsKey(child.toString())){
                     if(!lastMethod.localVarTable.get(child.toString()).equals(lastMethod.Type)){
-                        return  new ReturnObject("error:Type of return value -"+lastMethod.localVarTable.get(child.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"");
+                        return "error:Type of return value -"+lastMethod.localVarTable.get(child.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"";
                     }
                     varFound=true;
                 }
                 if(!varFound){
-                    return  new ReturnObject("error:Variable with identifier "+child.toString()+" is undefined");
+                    return "error:Variable with identifier "+child.toString()+" is undefined";
                 }
             }
             else if(child.getClass().equals(com.github.javaparser.ast.expr.AssignExpr.class)){
@@ -677,12 +938,12 @@ class SymbolTable {
                         if(child2.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
                             if(lastMethod.paramTable.containsKey(child2.toString())){
                                 if(!lastMethod.paramTable.get(child2.toString()).equals(lastMethod.Type)){
-                                    return  new ReturnObject("error:Type of return value -"+lastMethod.paramTable.get(child2.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"");
+                                    return "error:Type of return value -"+lastMethod.paramTable.get(child2.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"";
                                 }
                             }
                             if(lastMethod.localVarTable.containsKey(child2.toString())){
                                 if(!lastMethod.localVarTable.get(child2.toString()).equals(lastMethod.Type)){
-                                    return  new ReturnObject("error:Type of return value -"+lastMethod.localVarTable.get(child2.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"");
+                                    return "error:Type of return value -"+lastMethod.localVarTable.get(child2.toString())+"- doesnt match method's: "+lastMethod.Name+" should return: "+lastMethod.Type+"";
                                 }
                             }
                         }
@@ -710,266 +971,393 @@ class SymbolTable {
      * @param node the node
      * @param hrefGraph the href graph
      * @param previousNode the previous node
-     * @param ls the scope array
-     * @return the return object
+     * @param ls the scope array, where the scope the node opens goes
+     * @return the graph node the children of the node depend on, null when there is none or the node has an error
      */
-    ReturnObject SemanticNodeCheck(Node node, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
-        GraphNode nodeToSend = null;
+    GraphNode SemanticNodeCheck(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
         updateScopes(ls);
+        checkedNode = node;
+        NodeCheck check = nodeChecks.get(node.getClass());
+        if(check == null)
+            return null;
+        return check.check(this, node, hrefGraph, previousNode, ls);
+    }
 
-        if(node.getClass().equals(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)){
-            ClassScope classScp = new ClassScope();
-            fillClassScope(node,classScp);
-            if(!addClassScope(classScp, ls))
-                return new ReturnObject("error:repeated class/interface declaration of "+classScp.Name+" ");
+    /**
+     * Gets the error of the node last checked, and clears it.
+     *
+     * @return the error, null if the node has none
+     */
+    String takeError() {
+        String nodeError = error;
+        error = null;
+        return nodeError;
+    }
 
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-        }
+    /**
+     * Keeps the error of the node being checked.
+     *
+     * @param nodeError the error, null if the node has none
+     * @return null, as the node has no graph node for its children
+     */
+    private GraphNode fail(String nodeError) {
+        error = nodeError;
+        return null;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.body.MethodDeclaration.class)){
-            MethodScope methodScp = new MethodScope();
-            fillMethodScope(node,methodScp);
-            checkPendingMethods(methodScp);
-            if(!addMethodScope(methodScp, ls))
-                return  new ReturnObject("error:repeated method declaration of "+methodScp.Name+", please use different identifiers for methods in same class");
+    /**
+     * Check class declaration.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkClass(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        ClassScope classScp = new ClassScope();
+        fillClassScope(node,classScp);
+        if(!addClassScope(classScp, ls))
+            return fail("error:repeated class/interface declaration of "+classScp.Name+" ");
 
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-        }
+        return addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.body.Parameter.class)){
-            Parameter param = new Parameter();
-            if(!addParameter(node,param))
-                return  new ReturnObject("error:duplicated param identifier  : "+param.paramName+" in Method:"+lastMethod.Name+"");
-        }
+    /**
+     * Check method declaration.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkMethod(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        MethodScope methodScp = new MethodScope();
+        fillMethodScope(node,methodScp);
+        if(!addMethodScope(methodScp, ls))
+            return fail("error:repeated method declaration of "+methodScp.Name+", please use different identifiers for methods in same class");
+
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        methodScp.entry = nodeToSend;
+        if(callSites != null && nodeToSend != null && !(((MethodDeclaration) node).getType() instanceof VoidType))
+            methodScp.formalOut = addSdgNode(((MethodDeclaration) node).getType(), FORMAL_OUT, nodeToSend, hrefGraph);
+        return nodeToSend;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.stmt.IfStmt.class)){
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-            for(Node child2 : node.getChildrenNodes())
-                for(Node child: child2.getChildrenNodes()){
-                    if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)) {
-                        lastScope.varAccesses.add(new VarChanges(nodeToSend, child.toString()));
-
-                        String variable = child.toString();
-                        for (int i1 = scopes.size() - 1; i1 >= 0; i1--) {
-                            ArrayList<VarChanges> vc = scopes.get(i1).varChanges;
-                            for (VarChanges aVc : vc)
-                                if (aVc.getVar().equals(variable))
-                                    addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph);
-                        }
-                    }
-                }
+    /**
+     * Check parameter.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkParameter(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        Parameter param = new Parameter();
+        if(!addParameter(node,param))
+            return fail("error:duplicated param identifier  : "+param.paramName+" in Method:"+lastMethod.Name+"");
+        // the formal in node defines the parameter for its uses in the body
+        if(callSites != null && lastMethod.entry != null && lastMethod.methodNode == node.getParentNode()) {
+            GraphNode formalIn = addSdgNode(node, FORMAL_IN, lastMethod.entry, hrefGraph);
+            lastMethod.formalIns.add(formalIn);
+            addDefinition(formalIn, param.paramName, hrefGraph);
         }
+        return null;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.expr.UnaryExpr.class)){
-            ArrayList<String> undeclared;
-            String returnString = "error:Variables with identifiers:";
-            undeclared=assignBinaryExpressionCheck(node);
-            System.out.println(undeclared.toString());
-            if(undeclared.size()>0){
-                for(int i=0;i<undeclared.size();i++){
-                    if(i==0)
-                        returnString  = returnString.concat(undeclared.get(i)+" ");
-                    else returnString  = returnString.concat("and " + undeclared.get(i))+ " ";
-                    returnString = returnString.concat("in Method:"+lastMethod.Name+" are not declared");
-                }
-                return  new ReturnObject(returnString);
-            }
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-            for(Node child: node.getChildrenNodes()){
+    /**
+     * Check if statement.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkIf(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        for(Node child2 : node.getChildrenNodes())
+            for(Node child: child2.getChildrenNodes()){
                 if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)) {
                     lastScope.varAccesses.add(new VarChanges(nodeToSend, child.toString()));
 
                     String variable = child.toString();
-                    for (int i1 = scopes.size() - 1; i1 >= 0; i1--) {
-                        ArrayList<VarChanges> vc = scopes.get(i1).varChanges;
-                        for (VarChanges aVc : vc)
-                            if (aVc.getVar().equals(variable))
-                                addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph);
-                    }
+                    addFlowEdges(variable, nodeToSend, hrefGraph);
                 }
             }
-        }
-
-        else if(node.getClass().equals(com.github.javaparser.ast.expr.BinaryExpr.class)){
-            ArrayList<String> undeclared;
-            String returnString = "error:Variables with identifiers:";
-            undeclared=assignBinaryExpressionCheck(node);
-            System.out.println(undeclared.toString());
-            if(undeclared.size()>0){
-                for(int i=0;i<undeclared.size();i++){
-                    if(i==0)
-                        returnString  = returnString.concat(undeclared.get(i)+" ");
-                    else returnString  = returnString.concat("and " + undeclared.get(i))+ " ";
-                    returnString = returnString.concat("in Method:"+lastMethod.Name+" are not declared");
-                }
+        return nodeToSend;
+    }
 
-                return  new ReturnObject(returnString);
+    /**
+     * Check unary expression.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkUnary(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        String undeclared = undeclaredVariablesError(node, lastMethod.Name);
+        if(undeclared != null)
+            return fail(undeclared);
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        for(Node child: node.getChildrenNodes()){
+            if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)) {
+                lastScope.varAccesses.add(new VarChanges(nodeToSend, child.toString()));
+
+                String variable = child.toString();
+                addFlowEdges(variable, nodeToSend, hrefGraph);
+                // by reaching definitions, an increment or a decrement also defines the variable
+                if(accesses != null && increments(((UnaryExpr) node).getOperator()))
+                    addDefinition(nodeToSend, variable, hrefGraph);
             }
         }
+        return nodeToSend;
+    }
 
-        else if (node.getClass().equals(com.github.javaparser.ast.expr.VariableDeclarationExpr.class)) {
-            Variable var = new Variable();
-            ArrayList<Variable> repeatedOcc;
-            repeatedOcc=addVariable(node,var);
-            if(repeatedOcc.size()>0){
-                String returnstring = "error:duplicated variable declarations:";
-                for(int i=0;i<repeatedOcc.size();i++){
-                    if(i==0)
-                        returnstring  = returnstring.concat(repeatedOcc.get(i).varName+" ");
-                    else returnstring  = returnstring.concat("and " + repeatedOcc.get(i).varName)+ " ";
-                }
-                returnstring = returnstring.concat("in Method:"+lastMethod.Name+"");
-                return  new ReturnObject(returnstring);
+    /**
+     * Checks if a unary operator increments or decrements its operand.
+     *
+     * @param operator the operator
+     * @return true, if it is an increment or a decrement
+     */
+    private static boolean increments(UnaryExpr.Operator operator) {
+        return operator == UnaryExpr.Operator.preIncrement || operator == UnaryExpr.Operator.preDecrement
+                || operator == UnaryExpr.Operator.posIncrement || operator == UnaryExpr.Operator.posDecrement;
+    }
+
+    /**
+     * Check binary expression.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkBinary(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        String undeclared = undeclaredVariablesError(node, lastMethod.Name);
+        if(undeclared != null)
+            return fail(undeclared);
+        return null;
+    }
+
+    /**
+     * Check variable declaration.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkVariableDeclaration(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        Variable var = new Variable();
+        ArrayList<Variable> repeatedOcc;
+        repeatedOcc=addVariable(node,var);
+        if(repeatedOcc.size()>0){
+            String returnstring = "error:duplicated variable declarations:";
+            for(int i=0;i<repeatedOcc.size();i++){
+                if(i==0)
+                    returnstring  = returnstring.concat(repeatedOcc.get(i).varName+" ");
+                else returnstring  = returnstring.concat("and " + repeatedOcc.get(i).varName)+ " ";
             }
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+            returnstring = returnstring.concat("in Method:"+lastMethod.Name+"");
+            return fail(returnstring);
+        }
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
 
-            for(Node child: node.getChildrenNodes()){
-                if(child.getClass().equals(com.github.javaparser.ast.body.VariableDeclarator.class)) {
-                    for(Node childNode : child.getChildrenNodes()){
-                        if(childNode.getClass().equals(com.github.javaparser.ast.body.VariableDeclaratorId.class)) {
-                            lastScope.varChanges.add(new VarChanges(nodeToSend, childNode.toString()));
-                        }
+        for(Node child: node.getChildrenNodes()){
+            if(child.getClass().equals(com.github.javaparser.ast.body.VariableDeclarator.class)) {
+                // the initializer uses its variables before the declared one is defined
+                Expression init = ((com.github.javaparser.ast.body.VariableDeclarator) child).getInit();
+                if((callSites != null || accesses != null) && nodeToSend != null && init != null)
+                    for(String variable : namesUsedBy(init))
+                        addFlowEdges(variable, nodeToSend, hrefGraph);
+                for(Node childNode : child.getChildrenNodes()){
+                    if(childNode.getClass().equals(com.github.javaparser.ast.body.VariableDeclaratorId.class)) {
+                        addDefinition(nodeToSend, childNode.toString(), hrefGraph);
                     }
                 }
             }
-
-        }
-
-        else if (node.getClass().equals(com.github.javaparser.ast.body.FieldDeclaration.class)) {
-            Field fld= new Field();
-            if(!addField(node,fld))
-                return  new ReturnObject("error:duplicated fields: "+fld.fieldName+" in class : "+lastClass.Name+"");
-
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-        }
-
-        else if (node.getClass().equals(com.github.javaparser.ast.stmt.ForStmt.class)) {
-            LoopScope loopScp = new LoopScope();
-            fillLoopScope(node,loopScp);
-            addLoopScope(loopScp, ls);
-
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, true);
-            analyseVariablesInLoop(node, hrefGraph, nodeToSend, loopScp);
         }
+        return nodeToSend;
+    }
 
-        else if (node.getClass().equals(com.github.javaparser.ast.stmt.DoStmt.class)) {
-            LoopScope loopScp = new LoopScope();
-            fillLoopScope(node,loopScp);
-            addLoopScope(loopScp, ls);
+    /**
+     * Check field declaration.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkField(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        Field fld= new Field();
+        if(!addField(node,fld))
+            return fail("error:duplicated fields: "+fld.fieldName+" in class : "+lastClass.Name+"");
 
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, true);
-            analyseVariablesInLoop(node, hrefGraph, nodeToSend, loopScp);
-        }
+        return addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+    }
 
-        else if (node.getClass().equals(com.github.javaparser.ast.stmt.WhileStmt.class)) {
-            LoopScope loopScp = new LoopScope();
-            fillLoopScope(node,loopScp);
-            addLoopScope(loopScp, ls);
+    /**
+     * Check for, do and while loops.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkLoop(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        LoopScope loopScp = new LoopScope();
+        fillLoopScope(node,loopScp);
+        addLoopScope(loopScp, ls);
 
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, true);
-            analyseVariablesInLoop(node, hrefGraph, nodeToSend, loopScp);
-        }
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, true);
+        analyseVariablesInLoop(node, hrefGraph, nodeToSend, loopScp);
+        return nodeToSend;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.expr.MethodCallExpr.class)){
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-            for(Node childNode : node.getChildrenNodes()) {
-                if(childNode.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
-                    String variable = childNode.toString();
-                    lastScope.varAccesses.add(new VarChanges(nodeToSend, childNode.toString()));
-                    for(int i = scopes.size() - 1; i >= 0; i--) {
-                        ArrayList<VarChanges> vc = scopes.get(i).varChanges;
-                        for (VarChanges aVc : vc) {
-                            if (aVc.getVar().equals(variable)) {
-                                addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph);
-                            }
-                        }
-                    }
-                }
+    /**
+     * Check method call.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkMethodCall(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        String callError = processMethodCallNode(node, nodeToSend, hrefGraph);
+        for(Node childNode : node.getChildrenNodes()) {
+            // an argument with an actual in node is used there, not by the call
+            if(childNode.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class) && !actualIns.containsKey(childNode)){
+                String variable = ((NameExpr) childNode).getName();
+                lastScope.varAccesses.add(new VarChanges(nodeToSend, variable));
+                addFlowEdges(variable, nodeToSend, hrefGraph);
             }
-            return processMethodCallNode(node);
         }
+        return fail(callError);
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.expr.FieldAccessExpr.class)){
-            String scope;
-            if(!((FieldAccessExpr) node).getScope().toString().startsWith("System")){
-                if(((FieldAccessExpr) node).getScope().toString().startsWith("this"))
-                    scope=lastClass.Name;
-                else scope=((FieldAccessExpr) node).getScope().toString();
-                for (Scope scope1 : scopes) {
-                    if (scope1.getClass() == ClassScope.class) {
-                        if (((ClassScope) scope1).Name.equals(scope))
-                            if (!((ClassScope) scope1).fieldTable.containsKey(((FieldAccessExpr) node).getField()))
-                                return new ReturnObject("error:Field with identifier " + ((FieldAccessExpr) node).getField() + " in Method " + lastMethod.Name + " is not declared");
-
-                    }
-                }
-            }
+    /**
+     * Check field access.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkFieldAccess(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        String scope;
+        if(!((FieldAccessExpr) node).getScope().toString().startsWith("System")){
+            if(((FieldAccessExpr) node).getScope().toString().startsWith("this"))
+                scope=lastClass.Name;
+            else scope=((FieldAccessExpr) node).getScope().toString();
+            ClassScope classScp = classes.get(scope);
+            if (classScp != null && classScp.order < horizon && !declaresField(classScp, ((FieldAccessExpr) node).getField()))
+                return fail("error:Field with identifier " + ((FieldAccessExpr) node).getField() + " in Method " + lastMethod.Name + " is not declared");
         }
+        return null;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.expr.AssignExpr.class)){
-            ArrayList<String> undeclared;
-            String returnString = "error:Variables with identifiers:";
-            undeclared=assignBinaryExpressionCheck(node);
-            System.out.println(undeclared.toString());
-            if(undeclared.size()>0){
-                for(int i=0;i<undeclared.size();i++){
-                    if(i==0)
-                        returnString  = returnString.concat(undeclared.get(i)+" ");
-                    else returnString  = returnString.concat("and " + undeclared.get(i))+ " ";
-                    returnString = returnString.concat("in Method:"+lastMethod.Name+" are not declared");
-                }
+    /**
+     * Check assignment.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkAssign(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        String undeclared = undeclaredVariablesError(node, lastMethod.Name);
+        if(undeclared != null)
+            return fail(undeclared);
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        int counter = 0;
+        for(Node child: node.getChildrenNodes()){
+            if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
 
-                return  new ReturnObject(returnString);
+                if(counter == 0)
+                    addDefinition(nodeToSend, child.toString(), hrefGraph);
+                else
+                    lastScope.varAccesses.add(new VarChanges(nodeToSend, child.toString()));
+
+                String variable = child.toString();
+                //with reaching definitions, only a compound assignment such as += uses its target
+                if(counter != 0 || accesses == null || ((AssignExpr) node).getOperator() != AssignExpr.Operator.assign)
+                    addFlowEdges(variable, nodeToSend, hrefGraph);
             }
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-            int counter = 0;
-            for(Node child: node.getChildrenNodes()){
-                if(child.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
+            else if(child.getClass().equals(com.github.javaparser.ast.expr.BinaryExpr.class)){
+                for(Node childNode : child.getChildrenNodes()) {
+                    if(childNode.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
 
-                    if(counter == 0)
-                        lastScope.varChanges.add(new VarChanges(nodeToSend, child.toString()));
-                    else
-                        lastScope.varAccesses.add(new VarChanges(nodeToSend, child.toString()));
+                        if(counter == 0)
+                            addDefinition(nodeToSend, childNode.toString(), hrefGraph);
+                        else
+                            lastScope.varAccesses.add(new VarChanges(nodeToSend, childNode.toString()));
 
-                    String variable = child.toString();
-                    for(int i1 = scopes.size() - 1; i1 >= 0; i1--) {
-                        ArrayList<VarChanges> vc = scopes.get(i1).varChanges;
-                        for (VarChanges aVc : vc)
-                            if (aVc.getVar().equals(variable))
-                                addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph);
-                    }
-                }
-                else if(child.getClass().equals(com.github.javaparser.ast.expr.BinaryExpr.class)){
-                    for(Node childNode : child.getChildrenNodes()) {
-                        if(childNode.getClass().equals(com.github.javaparser.ast.expr.NameExpr.class)){
-
-                            if(counter == 0)
-                                lastScope.varChanges.add(new VarChanges(nodeToSend, childNode.toString()));
-                            else
-                                lastScope.varAccesses.add(new VarChanges(nodeToSend, childNode.toString()));
-
-                            String variable = childNode.toString();
-                            for(int i1 = scopes.size() - 1; i1 >= 0; i1--) {
-                                ArrayList<VarChanges> vc = scopes.get(i1).varChanges;
-                                for (VarChanges aVc : vc)
-                                    if (aVc.getVar().equals(variable))
-                                        addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph);
-                            }
-                        }
+                        String variable = childNode.toString();
+                        addFlowEdges(variable, nodeToSend, hrefGraph);
                     }
                 }
-                counter++;
             }
+            counter++;
         }
+        return nodeToSend;
+    }
+
+    /**
+     * Check return statement.
+     *
+     * @param node the node
+     * @param hrefGraph the href graph
+     * @param previousNode the previous node
+     * @param ls the scope array
+     * @return the graph node the children of the node depend on
+     */
+    private GraphNode checkReturnStmt(Node node, CompactGraph hrefGraph, GraphNode previousNode, ArrayList<Scope> ls) {
+        GraphNode nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
+        if((callSites != null || accesses != null) && nodeToSend != null)
+            for(String variable : namesUsedBy(node))
+                addFlowEdges(variable, nodeToSend, hrefGraph);
+        if(callSites != null && nodeToSend != null && lastMethod.formalOut != null)
+            addEdgeBetweenNodes(nodeToSend, lastMethod.formalOut, EdgeKind.FLOW, hrefGraph);
+        String returnError = checkReturn(node);
+        if(returnError != null)
+            return fail(returnError);
+        return nodeToSend;
+    }
 
-        else if(node.getClass().equals(com.github.javaparser.ast.stmt.ReturnStmt.class)){
-            nodeToSend = addNodeAndEdgeToGraph(node, hrefGraph, previousNode, false);
-            ReturnObject returnObject;
-            if((returnObject=checkReturn(node))!=null)
-                return returnObject;
-            return new ReturnObject(nodeToSend);
+    /**
+     * Builds the error for the undeclared variables used directly by a node.
+     *
+     * @param node the node
+     * @param methodName the name of the method being checked
+     * @return the error, null if every variable is declared
+     */
+    private String undeclaredVariablesError(Node node, String methodName) {
+        ArrayList<String> undeclared=assignBinaryExpressionCheck(node);
+        if(dump != null)
+            dump.println(undeclared.toString());
+        if(undeclared.isEmpty())
+            return null;
+        String returnString = "error:Variables with identifiers:";
+        for(int i=0;i<undeclared.size();i++){
+            if(i==0)
+                returnString  = returnString.concat(undeclared.get(i)+" ");
+            else returnString  = returnString.concat("and " + undeclared.get(i))+ " ";
+            returnString = returnString.concat("in Method:"+methodName+" are not declared");
         }
-        return new ReturnObject(nodeToSend);
+        return returnString;
     }
 
     /**
@@ -980,7 +1368,7 @@ class SymbolTable {
      * @param nodeToSend the node to send
      * @param loopScp the loop scope
      */
-    private void analyseVariablesInLoop(Node node, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+    private void analyseVariablesInLoop(Node node, CompactGraph hrefGraph,
                                         GraphNode nodeToSend, LoopScope loopScp) {
         loopScp.gn = nodeToSend;
         loopScp.node = node;
@@ -993,25 +1381,61 @@ class SymbolTable {
                         lastScope.varAccesses.add(new VarChanges(nodeToSend, childNode.toString()));
 
                         String variable = childNode.toString();
-                        for(int i = scopes.size() - 1; i >= 0; i--) {
-                            ArrayList<VarChanges> vc = scopes.get(i).varChanges;
-                            vc.stream().filter(aVc -> aVc.getVar().equals(variable)).forEach(aVc -> addEdgeBetweenNodes(aVc.getGraphNode(), nodeToSend, "FD", hrefGraph));
-                        }
+                        addFlowEdges(variable, nodeToSend, hrefGraph);
                     }
     }
 
+    /**
+     * Records a definition of a variable in the current scope.
+     *
+     * @param gn the graph node that defines the variable
+     * @param variable the variable
+     * @param hrefGraph the href graph
+     */
+    private void addDefinition(GraphNode gn, String variable, CompactGraph hrefGraph) {
+        lastScope.addDefinition(gn, variable);
+        if(accesses != null)
+            accesses.add(new ReachingDefinitions.Access(checkedNode, variable, gn, true));
+        else if(flowEvents != null)
+            flowEvents.add(new FlowEvent(hrefGraph, variable, gn, true));
+        else
+            definitions.computeIfAbsent(variable, v -> new ArrayList<>()).add(gn);
+    }
+
+    /**
+     * Adds a flow dependence edge from every definition of a variable made so far to its use.
+     *
+     * @param variable the variable
+     * @param use the graph node that uses the variable
+     * @param hrefGraph the href graph
+     */
+    private void addFlowEdges(String variable, GraphNode use, CompactGraph hrefGraph) {
+        if(accesses != null) {
+            accesses.add(new ReachingDefinitions.Access(checkedNode, variable, use, false));
+            return;
+        }
+        if(flowEvents != null) {
+            flowEvents.add(new FlowEvent(hrefGraph, variable, use, false));
+            return;
+        }
+        ArrayList<GraphNode> defs = definitions.get(variable);
+        if(defs == null)
+            return;
+        for(GraphNode def : defs)
+            addEdgeBetweenNodes(def, use, EdgeKind.FLOW, hrefGraph);
+    }
+
     /**
      * Adds the edge between nodes.
      *
      * @param graphNode the graph node
      * @param node the node
-     * @param string the string
+     * @param kind the edge kind
      * @param hrefGraph the href graph
      */
-    @SuppressWarnings("rawtypes")
-	private void addEdgeBetweenNodes(GraphNode graphNode, GraphNode node, String string, DirectedGraph<GraphNode, RelationshipEdge> hrefGraph) {
+	private void addEdgeBetweenNodes(GraphNode graphNode, GraphNode node, EdgeKind kind, CompactGraph hrefGraph) {
         try{
-            hrefGraph.addEdge(graphNode, node, new RelationshipEdge(string));
+            hrefGraph.addEdge(graphNode, node, kind);
         } catch (Exception e) {
             System.out.println("ERROR in graph - " + e.getMessage());
             e.printStackTrace();
@@ -1027,19 +1451,19 @@ class SymbolTable {
      * @param loop the loop
      * @return the graph node
      */
-    private GraphNode addNodeAndEdgeToGraph(Node node, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+    private GraphNode addNodeAndEdgeToGraph(Node node, CompactGraph hrefGraph,
                                             GraphNode previousNode, boolean loop) {
         GraphNode nodeToSend = null;
         try{
-            GraphNode newNode = new GraphNode(node.getBeginLine(), node.toString());
-            hrefGraph.addVertex(newNode);
+            GraphNode newNode = newGraphNode(node, nodeKinds.get(node.getClass()));
+            int id = hrefGraph.addNode(newNode);
             if(previousNode == null)
                 nodeToSend = newNode;
             nodeToSend = newNode;
-            hrefGraph.addEdge(previousNode, newNode);
+            hrefGraph.addEdge(previousNode, newNode, EdgeKind.CONTROL);
 
             if(loop)
-                hrefGraph.addEdge(newNode, newNode);
+                hrefGraph.addEdge(id, id, EdgeKind.CONTROL);
         } catch (Exception e) {
             System.out.println("ERROR in graph - " + e.getMessage());
             e.printStackTrace();
@@ -1049,20 +1473,319 @@ class SymbolTable {
     }
 
     /**
-     * Adds the dependencies.
+     * Makes the graph node of an AST node, labelled with its source text.
+     *
+     * @param node the node
+     * @param kind the kind id
+     * @return the graph node
+     */
+    private GraphNode newGraphNode(Node node, int kind) {
+        int begin = source.offset(node.getBeginLine(), node.getBeginColumn());
+        int end = source.offset(node.getEndLine(), node.getEndColumn()) + 1;
+        return new GraphNode(fileId, node.getBeginLine(), node.getBeginColumn(), kind, source, begin, end - begin);
+    }
+
+    /**
+     * Adds a node of the system dependence graph, control dependent on another node.
+     *
+     * @param node the AST node it is labelled with
+     * @param kind the kind id
+     * @param parent the node it depends on
+     * @param hrefGraph the href graph
+     * @return the graph node
+     */
+    private GraphNode addSdgNode(Node node, int kind, GraphNode parent, CompactGraph hrefGraph) {
+        GraphNode sdgNode = newGraphNode(node, kind);
+        hrefGraph.addNode(sdgNode);
+        addEdgeBetweenNodes(parent, sdgNode, EdgeKind.CONTROL, hrefGraph);
+        return sdgNode;
+    }
+
+    /**
+     * Gets the variables an expression uses, leaving out the arguments of the method calls in it,
+     * whose values come from the calls.
+     *
+     * @param node the node
+     * @return the variables
+     */
+    private ArrayList<String> namesUsedBy(Node node) {
+        ArrayList<String> names = new ArrayList<>();
+        if(node instanceof NameExpr)
+            names.add(((NameExpr) node).getName());
+        else if(!(node instanceof MethodCallExpr))
+            for(Node child : node.getChildrenNodes())
+                names.addAll(namesUsedBy(child));
+        return names;
+    }
+
+    /**
+     * Keeps a method call for the system dependence graph, with an actual in node for every argument.
+     *
+     * @param node the method call
+     * @param callNode the graph node of the call
+     * @param classScope the class scope
+     * @param methodName the method name
+     * @param hrefGraph the href graph
+     */
+    private void addCallSite(Node node, GraphNode callNode, String classScope, String methodName, CompactGraph hrefGraph) {
+        if(callSites == null || callNode == null)
+            return;
+        CallSite call = new CallSite(node, callNode, classScope, methodName, valueUse(node, hrefGraph));
+        for(Node arg : ((MethodCallExpr) node).getArgs()) {
+            GraphNode actualIn = addSdgNode(arg, ACTUAL_IN, callNode, hrefGraph);
+            for(String variable : namesUsedBy(arg)) {
+                lastScope.varAccesses.add(new VarChanges(actualIn, variable));
+                addFlowEdges(variable, actualIn, hrefGraph);
+            }
+            actualIns.put(arg, actualIn);
+            call.actualIns.add(actualIn);
+        }
+        callSites.add(call);
+    }
+
+    /**
+     * Finds the graph node that uses the value a method call returns: the actual in node when the call is
+     * an argument of another call, else the closest enclosing node of the graph within the statement.
+     *
+     * @param call the method call
+     * @param hrefGraph the href graph
+     * @return the graph node, null when the value is not used
+     */
+    private GraphNode valueUse(Node call, CompactGraph hrefGraph) {
+        for(Node node = call; node.getParentNode() != null; node = node.getParentNode()) {
+            GraphNode actualIn = actualIns.get(node);
+            if(actualIn != null)
+                return actualIn;
+            Node parent = node.getParentNode();
+            if(parent instanceof ExpressionStmt || parent instanceof BlockStmt || parent instanceof BodyDeclaration)
+                return null;
+            int id = hrefGraph.nodeId(newGraphNode(parent, nodeKinds.get(parent.getClass())));
+            if(id >= 0)
+                return hrefGraph.getNode(id);
+        }
+        return null;
+    }
+
+    /**
+     * Builds the system dependence graph of the file: joins every call site to the method it calls, with an
+     * actual out node for the returned value, then adds the summary edges. A call to a method the file does not
+     * declare keeps depending on its arguments, through a flow edge from each actual in node.
+     *
+     * @param hrefGraph the href graph
+     */
+    void addCallEdges(CompactGraph hrefGraph) {
+        SystemDependenceGraph sdg = new SystemDependenceGraph(hrefGraph);
+        for(CallSite call : callSites) {
+            MethodScope callee = findMethod(call.classScope, call.methodName, ((MethodCallExpr) call.method).getArgs().size());
+            if(callee == null || callee.entry == null) {
+                for(GraphNode actualIn : call.actualIns)
+                    addEdgeBetweenNodes(actualIn, call.node, EdgeKind.FLOW, hrefGraph);
+                continue;
+            }
+            GraphNode actualOut = null;
+            if(callee.formalOut != null) {
+                actualOut = addSdgNode(call.method, ACTUAL_OUT, call.node, hrefGraph);
+                if(call.use != null)
+                    addEdgeBetweenNodes(actualOut, call.use, EdgeKind.FLOW, hrefGraph);
+            }
+            sdg.addCall(call.node, call.actualIns, actualOut, callee.entry, callee.formalIns, callee.formalOut);
+        }
+        sdg.addSummaryEdges();
+    }
+
+    /**
+     * Keeps the definitions and uses of variables from now on, so the flow edges are added once the methods
+     * analyzed apart are merged.
+     */
+    void recordFlow() {
+        flowEvents = new ArrayList<>();
+    }
+
+    /**
+     * Forks the analysis of the body of the method last declared.
+     *
+     * @param hrefGraph the graph built so far
+     * @return the fork
+     */
+    Fork fork(CompactGraph hrefGraph) {
+        return new Fork(this, hrefGraph);
+    }
+
+    /**
+     * Merges the methods analyzed apart into the file graph, as if the file was analyzed in order: the nodes, the
+     * edges, the scopes, the call sites, the unresolved calls and the accesses of every method go where it was forked, and
+     * the definitions and uses of variables are replayed in that order to add the flow edges.
+     *
+     * @param graph the graph built with the methods left out, starting with the node it was built from
+     * @param forks the forks, in the order of the file
+     * @param hrefGraph the href graph
+     */
+    void merge(CompactGraph graph, List<Fork> forks, CompactGraph hrefGraph) {
+        int[] ids = new int[graph.getNodeCount()];
+        int node = 0;
+        for(Fork fork : forks) {
+            for(; node < fork.nodes; node++)
+                ids[node] = hrefGraph.addNode(graph.getNode(node));
+            fork.ids = new int[fork.graph.getNodeCount()];
+            for(int id = 0; id < fork.ids.length; id++)
+                fork.ids[id] = hrefGraph.addNode(fork.graph.getNode(id));
+        }
+        for(; node < ids.length; node++)
+            ids[node] = hrefGraph.addNode(graph.getNode(node));
+
+        ArrayList<FlowEvent> events = flowEvents;
+        flowEvents = null;
+        // the definitions made so far, by variable, as events to reach their node by id
+        HashMap<String, ArrayList<FlowEvent>> defs = new HashMap<>();
+        int edge = 0, event = 0;
+        for(Fork fork : forks) {
+            replay(graph, ids, edge, fork.edges, events, event, fork.events, defs, hrefGraph);
+            replay(fork.graph, fork.ids, 0, fork.graph.getEdgeCount(), fork.table.flowEvents, 0, fork.table.flowEvents.size(), defs, hrefGraph);
+            edge = fork.edges;
+            event = fork.events;
+        }
+        replay(graph, ids, edge, graph.getEdgeCount(), events, event, events.size(), defs, hrefGraph);
+
+        scopes = splice(scopes, forks, fork -> fork.scopes, fork -> fork.table.scopes);
+        unresolvedCalls = splice(unresolvedCalls, forks, fork -> fork.unresolvedCalls, fork -> fork.table.unresolvedCalls);
+        if(callSites != null)
+            callSites = splice(callSites, forks, fork -> fork.callSites, fork -> fork.table.callSites);
+        if(accesses != null)
+            accesses = splice(accesses, forks, fork -> fork.accesses, fork -> fork.table.accesses);
+        for(Fork fork : forks) {
+            actualIns.putAll(fork.table.actualIns);
+            solved.putAll(fork.table.solved);
+        }
+    }
+
+    /**
+     * Adds a range of the edges of a graph to the href graph, with the flow edges of the definitions and uses made
+     * in between.
+     *
+     * @param graph the graph
+     * @param ids the id of every node of the graph in the href graph
+     * @param fromEdge the first edge
+     * @param toEdge the edge after the last one
+     * @param events the flow events of the graph
+     * @param fromEvent the first flow event
+     * @param toEvent the flow event after the last one
+     * @param defs the definitions replayed so far, by variable
+     * @param hrefGraph the href graph
+     */
+    private void replay(CompactGraph graph, int[] ids, int fromEdge, int toEdge, List<FlowEvent> events, int fromEvent, int toEvent,
+                        HashMap<String, ArrayList<FlowEvent>> defs, CompactGraph hrefGraph) {
+        int event = fromEvent;
+        for(int edge = fromEdge; edge <= toEdge; edge++) {
+            for(; event < toEvent && events.get(event).edges <= edge; event++) {
+                FlowEvent flow = events.get(event);
+                flow.id = flow.localId < 0 ? -1 : ids[flow.localId];
+                if(flow.definition) {
+                    defs.computeIfAbsent(flow.variable, v -> new ArrayList<>()).add(flow);
+                    continue;
+                }
+                ArrayList<FlowEvent> reaching = defs.get(flow.variable);
+                if(reaching == null)
+                    continue;
+                for(FlowEvent def : reaching) {
+                    // a node that is not in the graph fails as it does when the flow edges are added at once
+                    if(def.id < 0 || flow.id < 0)
+                        addEdgeBetweenNodes(def.node, flow.node, EdgeKind.FLOW, hrefGraph);
+                    else
+                        hrefGraph.addEdge(def.id, flow.id, EdgeKind.FLOW);
+                }
+            }
+            if(edge < toEdge)
+                hrefGraph.addEdge(ids[graph.getEdgeSource(edge)], ids[graph.getEdgeTarget(edge)], graph.getEdgeKind(edge));
+        }
+    }
+
+    /**
+     * Puts the elements of the forks in a list, each where its fork was made.
+     *
+     * @param <T> the element type
+     * @param list the list
+     * @param forks the forks, in the order of the file
+     * @param size the size of the list when each fork was made
+     * @param elements the elements of each fork
+     * @return the list with the elements of the forks
+     */
+    private static <T> ArrayList<T> splice(List<T> list, List<Fork> forks, ToIntFunction<Fork> size, Function<Fork, List<T>> elements) {
+        ArrayList<T> spliced = new ArrayList<>();
+        int from = 0;
+        for(Fork fork : forks) {
+            spliced.addAll(list.subList(from, size.applyAsInt(fork)));
+            spliced.addAll(elements.apply(fork));
+            from = size.applyAsInt(fork);
+        }
+        spliced.addAll(list.subList(from, list.size()));
+        return spliced;
+    }
+
+    /**
+     * Adds the loop carried dependencies, from every definition made in a loop to the uses in its condition
+     * and body that it reaches on the next iteration. A use already joined to the definition keeps its flow edge.
      *
      * @param hrefGraph the href graph
      */
-    void addDependencies(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph) {
+    void addDependencies(CompactGraph hrefGraph) {
         scopes.stream().filter(scope -> scope instanceof LoopScope).forEach(scope -> {
             LoopScope ls = (LoopScope) scope;
             (ls.node.getChildrenNodes()).stream().filter(child -> child.getClass().equals(BinaryExpr.class)).forEach(child -> child.getChildrenNodes().stream().filter(childNode -> childNode.getClass().equals(NameExpr.class)).forEach(childNode -> {
                 String variable = childNode.toString();
-                ls.varChanges.stream().filter(vc -> vc.getVar().equals(variable)).forEach(vc -> addEdgeBetweenNodes(vc.getGraphNode(), ls.gn, "FD", hrefGraph));
+                ls.definitionsOf(variable).forEach(def -> addEdgeBetweenNodes(def, ls.gn, EdgeKind.LOOP_CARRIED, hrefGraph));
             }));
             for (VarChanges va : ls.varAccesses)
-                ls.varChanges.stream().filter(vc -> va.getVar().equals(vc.getVar())).forEach(vc -> addEdgeBetweenNodes(vc.getGraphNode(), va.getGraphNode(), "FD", hrefGraph));
+                ls.definitionsOf(va.getVar()).forEach(def -> addEdgeBetweenNodes(def, va.getGraphNode(), EdgeKind.LOOP_CARRIED, hrefGraph));
         });
     }
 
+    /**
+     * Solves the reaching definitions of every body whose accesses were kept and that is not solved yet.
+     *
+     * @return the bodies, in the order of their first access, empty when the flow edges are added by name
+     */
+    List<Node> solveReachingDefinitions() {
+        ArrayList<Node> bodies = new ArrayList<>();
+        if(accesses == null)
+            return bodies;
+        // the bodies are told apart by identity, as equal methods of two classes are equal nodes
+        IdentityHashMap<Node, List<ReachingDefinitions.Access>> bodyAccesses = new IdentityHashMap<>();
+        Node node = null, body = null;
+        List<ReachingDefinitions.Access> current = null;
+        for(ReachingDefinitions.Access access : accesses) {
+            if(access.node != node) {
+                node = access.node;
+                Node next = ControlFlowGraph.bodyOf(node);
+                if(next != body) {
+                    body = next;
+                    current = body == null ? null : bodyAccesses.get(body);
+                    if(body != null && current == null) {
+                        bodies.add(body);
+                        current = new ArrayList<>();
+                        bodyAccesses.put(body, current);
+                    }
+                }
+            }
+            if(current != null)
+                current.add(access);
+        }
+        for(Node unsolved : bodies)
+            if(!solved.containsKey(unsolved))
+                solved.put(unsolved, ReachingDefinitions.solve(unsolved, bodyAccesses.get(unsolved)));
+        return bodies;
+    }
+
+    /**
+     * Adds the flow and loop carried edges by reaching definitions, body by body in the order of the file. Only the
+     * definitions made in the body of a use reach it, and the accesses out of any method, constructor or initializer
+     * body have no edges.
+     *
+     * @param hrefGraph the href graph
+     */
+    void addReachingDefinitions(CompactGraph hrefGraph) {
+        for(Node body : solveReachingDefinitions())
+            for(ReachingDefinitions.Dependence dependence : solved.get(body))
+                addEdgeBetweenNodes(dependence.definition, dependence.use, dependence.kind, hrefGraph);
+    }
+
 }
@@ -0,0 +1,205 @@
+package pdg;
+
+import graphStructures.CompactGraph;
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class SystemDependenceGraph. Joins the call sites of a graph to the methods they call and adds the summary
+ * edges of Horwitz, Reps and Binkley: an edge from an actual in node to the actual out node of the same call site
+ * whenever the called method passes the value of the formal in parameter on to its returned value, through
+ * its own dependences or through the summary edges of the calls it makes.
+ * <p>
+ * The summary edges are found with the worklist of Reps, Horwitz, Sagiv and Rosay: starting from every formal out
+ * node, the nodes it depends on within its method are reached backwards over the control, flow, loop carried and
+ * summary edges. Reaching a formal in node of the same method gives a summary edge at every call of the method,
+ * which is followed in turn. Each node is reached at most once per formal out node, so no method body is walked
+ * again for each of its callers, and a slice can later step over a call without entering the callee.
+ */
+class SystemDependenceGraph {
+
+    /** The graph. */
+    private final CompactGraph hrefGraph;
+
+    /** The calls, by the formal out node of the called method. */
+    private final HashMap<Integer, List<Call>> calls = new HashMap<>();
+
+    /** The position and method of every formal in node, by node id. */
+    private final HashMap<Integer, FormalIn> formalInPositions = new HashMap<>();
+
+    /** The nodes reached from each formal out node, by formal out node. */
+    private final HashMap<Integer, BitSet> reached = new HashMap<>();
+
+    /** The source and target of every summary edge, in the order found. */
+    private final LinkedHashSet<Long> summaryEdges = new LinkedHashSet<>();
+
+    /** The actual in nodes joined to every actual out node by a summary edge, by actual out node. */
+    private final HashMap<Integer, List<Integer>> summaryPredecessors = new HashMap<>();
+
+    /** The node and formal out pairs reached but not followed yet. */
+    private final ArrayDeque<Long> worklist = new ArrayDeque<>();
+
+    /**
+     * The Class Call. A call site joined to a method that returns a value.
+     */
+    private static class Call {
+
+        /** The actual in nodes, by parameter position. */
+        final int[] actualIns;
+
+        /** The actual out node. */
+        final int actualOut;
+
+        /**
+         * Instantiates a new call.
+         *
+         * @param actualIns the actual in nodes
+         * @param actualOut the actual out node
+         */
+        Call(int[] actualIns, int actualOut) {
+            this.actualIns = actualIns;
+            this.actualOut = actualOut;
+        }
+    }
+
+    /**
+     * The Class FormalIn. The position of a formal in node among the parameters of its method.
+     */
+    private static class FormalIn {
+
+        /** The parameter position. */
+        final int index;
+
+        /** The formal out node of the method, -1 when it returns nothing. */
+        final int formalOut;
+
+        /**
+         * Instantiates a new formal in.
+         *
+         * @param index the parameter position
+         * @param formalOut the formal out node of the method
+         */
+        FormalIn(int index, int formalOut) {
+            this.index = index;
+            this.formalOut = formalOut;
+        }
+    }
+
+    /**
+     * Instantiates a new system dependence graph builder.
+     *
+     * @param hrefGraph the href graph
+     */
+    SystemDependenceGraph(CompactGraph hrefGraph) {
+        this.hrefGraph = hrefGraph;
+    }
+
+    /**
+     * Joins a call site to the method it calls: a call edge to the method entry, a parameter in edge from every
+     * actual in node to the formal in node at the same position, and a return edge from the formal out node to the
+     * actual out node. The extra arguments or parameters of a call with the wrong number of arguments are left alone.
+     *
+     * @param call the call site node
+     * @param actualIns the actual in nodes of the call site
+     * @param actualOut the actual out node of the call site, null when the method returns nothing
+     * @param entry the method entry node
+     * @param formalIns the formal in nodes of the method
+     * @param formalOut the formal out node of the method, null when it returns nothing
+     */
+    void addCall(GraphNode call, List<GraphNode> actualIns, GraphNode actualOut,
+                 GraphNode entry, List<GraphNode> formalIns, GraphNode formalOut) {
+        hrefGraph.addEdge(call, entry, EdgeKind.CALL);
+        int formalOutId = formalOut == null ? -1 : hrefGraph.nodeId(formalOut);
+        int parameters = Math.min(actualIns.size(), formalIns.size());
+        int[] actualInIds = new int[parameters];
+        for (int i = 0; i < parameters; i++) {
+            actualInIds[i] = hrefGraph.nodeId(actualIns.get(i));
+            hrefGraph.addEdge(actualIns.get(i), formalIns.get(i), EdgeKind.PARAMETER_IN);
+            formalInPositions.putIfAbsent(hrefGraph.nodeId(formalIns.get(i)), new FormalIn(i, formalOutId));
+        }
+        if (formalOut == null || actualOut == null)
+            return;
+        hrefGraph.addEdge(formalOut, actualOut, EdgeKind.RETURN);
+        calls.computeIfAbsent(formalOutId, id -> new ArrayList<>()).add(new Call(actualInIds, hrefGraph.nodeId(actualOut)));
+    }
+
+    /**
+     * Adds the summary edges of every call added so far.
+     */
+    void addSummaryEdges() {
+        for (int formalOut : calls.keySet()) {
+            reached.put(formalOut, new BitSet(hrefGraph.getNodeCount()));
+            reach(formalOut, formalOut);
+        }
+        while (!worklist.isEmpty()) {
+            long pair = worklist.poll();
+            int node = (int) (pair >>> 32);
+            int formalOut = (int) pair;
+            FormalIn formalIn = formalInPositions.get(node);
+            if (formalIn != null && formalIn.formalOut == formalOut) {
+                for (Call call : calls.get(formalOut))
+                    if (formalIn.index < call.actualIns.length)
+                        addSummaryEdge(call.actualIns[formalIn.index], call.actualOut);
+                continue;
+            }
+            for (int i = 0; i < hrefGraph.inDegree(node); i++) {
+                int edge = hrefGraph.incomingEdge(node, i);
+                if (withinMethod(hrefGraph.getEdgeKind(edge)))
+                    reach(hrefGraph.getEdgeSource(edge), formalOut);
+            }
+            for (int actualIn : summaryPredecessors.getOrDefault(node, Collections.emptyList()))
+                reach(actualIn, formalOut);
+        }
+        // added last, so the incoming rows are built once for the whole search
+        for (long edge : summaryEdges)
+            hrefGraph.addEdge((int) (edge >>> 32), (int) edge, EdgeKind.SUMMARY);
+    }
+
+    /**
+     * Adds a summary edge, unless found before, and follows it from every formal out node that reaches its actual out node.
+     *
+     * @param actualIn the actual in node
+     * @param actualOut the actual out node
+     */
+    private void addSummaryEdge(int actualIn, int actualOut) {
+        if (!summaryEdges.add(((long) actualIn << 32) | actualOut))
+            return;
+        summaryPredecessors.computeIfAbsent(actualOut, id -> new ArrayList<>()).add(actualIn);
+        for (Map.Entry<Integer, BitSet> nodes : reached.entrySet())
+            if (nodes.getValue().get(actualOut))
+                reach(actualIn, nodes.getKey());
+    }
+
+    /**
+     * Marks a node as reached from a formal out node, queuing it when reached for the first time.
+     *
+     * @param node the node
+     * @param formalOut the formal out node
+     */
+    private void reach(int node, int formalOut) {
+        BitSet nodes = reached.get(formalOut);
+        if (nodes.get(node))
+            return;
+        nodes.set(node);
+        worklist.add(((long) node << 32) | formalOut);
+    }
+
+    /**
+     * Checks if a kind of edge stays within a method.
+     *
+     * @param kind the edge kind
+     * @return true, for the control, flow, loop carried and summary edges
+     */
+    private static boolean withinMethod(EdgeKind kind) {
+        return kind == EdgeKind.CONTROL || kind == EdgeKind.FLOW || kind == EdgeKind.LOOP_CARRIED || kind == EdgeKind.SUMMARY;
+    }
+}
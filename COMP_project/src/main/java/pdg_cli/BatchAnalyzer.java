@@ -0,0 +1,411 @@
+package pdg_cli;
+
+import graphExport.GraphExporter;
+import graphExport.GraphExporters;
+import graphStore.GraphStore;
+import graphStore.GraphStoreWriter;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+import pdg.AnalysisOptions;
+import pdg.FileAnalysis;
+import pdg.JsonLinesDiagnostics;
+import pdg.Project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The Class BatchAnalyzer - headless entry point that analyzes every .java file of a source tree
+ * on a fork-join pool and writes one graph per file (DOT, GraphML or JSON), plus every diagnostic to a JSON lines file.
+ * The files are kept in a {@link Project}, so in watch mode only the changed files are analyzed again.
+ */
+public class BatchAnalyzer {
+
+    /** The usage message. */
+    private static final String USAGE = "usage: BatchAnalyzer <source dir> <output dir> [-j threads] [--format dot|graphml|json] [--project-graph] [--store] [--sdg] [--parallel-methods] [--reaching-definitions] [--watch] [--dump-ast] [--dump-symbols]";
+
+    /** The diagnostics file, written in the output dir. */
+    private static final String DIAGNOSTICS_FILE = "diagnostics.jsonl";
+
+    /** The dump file, written in the output dir when a dump is on. */
+    private static final String DUMP_FILE = "dump.txt";
+
+    /** The project graph file, without its extension. */
+    private static final String PROJECT_GRAPH_FILE = "project";
+
+    /** How long the watch mode waits for more changes before analyzing, in milliseconds. */
+    private static final long WATCH_DELAY = 200;
+
+    /** The source root. */
+    private final Path sourceRoot;
+
+    /** The output root. */
+    private final Path outputRoot;
+
+    /** The options. */
+    private final AnalysisOptions options;
+
+    /** The exporter, shared by every worker. */
+    private final GraphExporter exporter;
+
+    /** The project, shared by every worker. */
+    private final Project project;
+
+    /** Whether the project graph is written. */
+    private boolean writeProjectGraph = false;
+
+    /** Whether the project graph is written to a graph store. */
+    private boolean writeStore = false;
+
+    /** The number of files analyzed in the current pass. */
+    private final AtomicInteger analyzed = new AtomicInteger();
+
+    /** The number of files that could not be read or written in the current pass. */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Instantiates a new batch analyzer.
+     *
+     * @param sourceRoot the source root
+     * @param outputRoot the output root
+     * @param options the options
+     * @param exporter the exporter the graphs are written with
+     */
+    public BatchAnalyzer(Path sourceRoot, Path outputRoot, AnalysisOptions options, GraphExporter exporter) {
+        this.sourceRoot = sourceRoot;
+        this.outputRoot = outputRoot;
+        this.options = options;
+        this.exporter = exporter;
+        this.project = new Project(options);
+    }
+
+    /**
+     * Sets whether the graph of the whole project is written, as project.&lt;format&gt; in the output dir.
+     *
+     * @param writeProjectGraph true to write the project graph
+     */
+    public void setWriteProjectGraph(boolean writeProjectGraph) {
+        this.writeProjectGraph = writeProjectGraph;
+    }
+
+    /**
+     * Sets whether the graph of the whole project is written to a graph store, as project.pdgs in the output dir.
+     *
+     * @param writeStore true to write the graph store
+     */
+    public void setWriteStore(boolean writeStore) {
+        this.writeStore = writeStore;
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2)
+            usage();
+        int threads = Runtime.getRuntime().availableProcessors();
+        AnalysisOptions options = new AnalysisOptions();
+        GraphExporter exporter = GraphExporters.forFormat("dot");
+        boolean projectGraph = false;
+        boolean store = false;
+        boolean watch = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "-j":
+                    if (++i == args.length)
+                        usage();
+                    threads = Integer.parseInt(args[i]);
+                    break;
+                case "--format":
+                    if (++i == args.length || (exporter = GraphExporters.forFormat(args[i])) == null)
+                        usage();
+                    break;
+                case "--project-graph":
+                    projectGraph = true;
+                    break;
+                case "--store":
+                    store = true;
+                    break;
+                case "--sdg":
+                    options.setSdg(true);
+                    break;
+                case "--parallel-methods":
+                    options.setParallelMethods(true);
+                    break;
+                case "--reaching-definitions":
+                    options.setReachingDefinitions(true);
+                    break;
+                case "--watch":
+                    watch = true;
+                    break;
+                case "--dump-ast":
+                    options.setDumpAst(true);
+                    break;
+                case "--dump-symbols":
+                    options.setDumpSymbolTable(true);
+                    break;
+                default:
+                    usage();
+            }
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(Paths.get(args[0]), Paths.get(args[1]), options, exporter);
+        analyzer.setWriteProjectGraph(projectGraph);
+        analyzer.setWriteStore(store);
+        int failures = 0;
+        try {
+            failures = analyzer.run(threads);
+            if (watch)
+                analyzer.watch(threads);
+        } catch (IOException e) {
+            System.err.println("Could not read source tree - " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(failures == 0 ? 0 : 2);
+    }
+
+    /**
+     * Prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Analyzes every .java file below the source root.
+     *
+     * @param threads the parallelism of the fork-join pool
+     * @return the number of files that could not be read, parsed or written
+     * @throws IOException Signals that the source tree could not be walked.
+     */
+    public int run(int threads) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceRoot)) {
+            files = walk.filter(BatchAnalyzer::isJavaFile).collect(Collectors.toList());
+        }
+        Files.createDirectories(outputRoot);
+        return analyze(files, threads);
+    }
+
+    /**
+     * Watches the source tree and analyzes again the files that change, until interrupted.
+     *
+     * @param threads the parallelism of the fork-join pool
+     * @throws IOException Signals that the source tree could not be watched.
+     * @throws InterruptedException Signals that the watch was interrupted.
+     */
+    public void watch(int threads) throws IOException, InterruptedException {
+        try (WatchService watcher = sourceRoot.getFileSystem().newWatchService()) {
+            register(watcher, sourceRoot);
+            System.out.println("Watching " + sourceRoot + " for changes");
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                WatchKey key = watcher.take();
+                do {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                            continue;
+                        Path path = dir.resolve((Path) event.context());
+                        if (Files.isDirectory(path)) {
+                            register(watcher, path);
+                            try (Stream<Path> walk = Files.walk(path)) {
+                                walk.filter(BatchAnalyzer::isJavaFile).forEach(changed::add);
+                            }
+                        } else if (path.toString().endsWith(".java")) {
+                            changed.add(path);
+                        }
+                    }
+                    key.reset();
+                } while ((key = watcher.poll(WATCH_DELAY, TimeUnit.MILLISECONDS)) != null);
+                analyze(new ArrayList<>(changed), threads);
+            }
+        }
+    }
+
+    /**
+     * Registers a directory and every directory below it with a watch service.
+     *
+     * @param watcher the watch service
+     * @param dir the directory
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void register(WatchService watcher, Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator)
+                path.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    /**
+     * Checks if a path is a .java file.
+     *
+     * @param path the path
+     * @return true, if a .java file
+     */
+    private static boolean isJavaFile(Path path) {
+        return Files.isRegularFile(path) && path.toString().endsWith(".java");
+    }
+
+    /**
+     * Brings the project up to date with some files, writes the graphs of the files that changed and
+     * rewrites the diagnostics of the whole project.
+     *
+     * @param files the files, a file that no longer exists is removed from the project
+     * @param threads the parallelism of the fork-join pool
+     * @return the number of files that could not be read, parsed or written
+     * @throws IOException Signals that the diagnostics could not be written.
+     */
+    private int analyze(List<Path> files, int threads) throws IOException {
+        long start = System.nanoTime();
+        analyzed.set(0);
+        failed.set(0);
+        Writer dump = null;
+        if (options.isDumping()) {
+            dump = Files.newBufferedWriter(outputRoot.resolve(DUMP_FILE), StandardCharsets.UTF_8);
+            options.setDumpWriter(dump);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new AnalyzeFilesTask(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+            if (dump != null)
+                dump.close();
+        }
+        project.resolve();
+        if (writeProjectGraph)
+            writeGraph(project.getGraph(), outputRoot.resolve(PROJECT_GRAPH_FILE + "." + exporter.getExtension()));
+        if (writeStore)
+            GraphStoreWriter.write(project.getGraph(), project::getFileName, outputRoot.resolve(PROJECT_GRAPH_FILE + "." + GraphStore.EXTENSION));
+
+        AtomicInteger parsed = new AtomicInteger();
+        AtomicInteger semanticErrors = new AtomicInteger();
+        try (JsonLinesDiagnostics out = new JsonLinesDiagnostics(Files.newBufferedWriter(outputRoot.resolve(DIAGNOSTICS_FILE), StandardCharsets.UTF_8)) {
+            @Override
+            public void fileAnalyzed(String file, int errors) {
+                parsed.incrementAndGet();
+                semanticErrors.addAndGet(errors);
+            }
+        }) {
+            project.report(out);
+        }
+        int unparsed = project.getFiles().size() - parsed.get();
+
+        System.out.println("Analyzed " + analyzed.get() + " files in " + (System.nanoTime() - start) / 1000000 + " ms, "
+                + (failed.get() + unparsed) + " failed, " + semanticErrors.get() + " semantic errors (see " + outputRoot.resolve(DIAGNOSTICS_FILE) + ")");
+        return failed.get() + unparsed;
+    }
+
+    /**
+     * Brings the project up to date with a single file and writes its graph if it changed.
+     *
+     * @param file the file
+     */
+    private void analyzeFile(Path file) {
+        Path relative = sourceRoot.relativize(file);
+        Path target = outputRoot.resolve(relative + "." + exporter.getExtension());
+        try {
+            if (!Files.exists(file)) {
+                if (project.remove(relative.toString()))
+                    Files.deleteIfExists(target);
+                return;
+            }
+            if (!project.update(relative.toString(), Files.readAllBytes(file)))
+                return;
+            analyzed.incrementAndGet();
+            FileAnalysis analysis = project.getFile(relative.toString());
+            if (analysis.isParsed())
+                writeGraph(analysis.getGraph(), target);
+            else
+                Files.deleteIfExists(target);
+        } catch (IOException e) {
+            System.err.println(relative + ": I/O Error - " + e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the graph with the exporter.
+     *
+     * @param hrefGraph the href graph
+     * @param target the target file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void writeGraph(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, Path target) throws IOException {
+        if (target.getParent() != null)
+            Files.createDirectories(target.getParent());
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            exporter.export(hrefGraph, out);
+        }
+    }
+
+    /**
+     * The Class AnalyzeFilesTask. Splits the file list in halves until a single file is left.
+     */
+    private class AnalyzeFilesTask extends RecursiveAction {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The files. */
+        private final List<Path> files;
+
+        /** The first index, inclusive. */
+        private final int from;
+
+        /** The last index, exclusive. */
+        private final int to;
+
+        /**
+         * Instantiates a new analyze files task.
+         *
+         * @param files the files
+         * @param from the first index
+         * @param to the last index
+         */
+        AnalyzeFilesTask(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from)
+                    analyzeFile(files.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new AnalyzeFilesTask(files, from, middle), new AnalyzeFilesTask(files, middle, to));
+        }
+    }
+}
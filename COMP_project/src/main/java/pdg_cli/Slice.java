@@ -0,0 +1,146 @@
+package pdg_cli;
+
+import graphStore.GraphStore;
+import graphStructures.CompactGraph;
+import graphStructures.EdgeKind;
+import pdg.AnalysisOptions;
+import pdg.PDGCore;
+import slicing.Slicer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.EnumSet;
+
+/**
+ * The Class Slice - headless entry point that prints the backward or forward slice of a line or a variable,
+ * from a .java file analyzed on the spot or from a graph store written by {@code BatchAnalyzer --store}.
+ * Every node of the slice is printed on its own line as {@code file:line<TAB>statement}, in file and line order.
+ */
+public class Slice {
+
+    /** The usage message. */
+    private static final String USAGE = "usage: Slice <file.java|graph.pdgs> <line>[:<variable>]|:<variable> [--file name] [--forward] [--kinds CD,FD,...] [--sdg] [--reaching-definitions]";
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2)
+            usage();
+        int line = 0;
+        String variable = null;
+        String fileName = null;
+        boolean forward = false;
+        EnumSet<EdgeKind> kinds = EnumSet.allOf(EdgeKind.class);
+        AnalysisOptions options = new AnalysisOptions();
+        try {
+            int colon = args[1].indexOf(':');
+            if (colon != 0)
+                line = Integer.parseInt(colon < 0 ? args[1] : args[1].substring(0, colon));
+            if (colon >= 0)
+                variable = args[1].substring(colon + 1);
+        } catch (NumberFormatException e) {
+            usage();
+        }
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file":
+                    if (++i == args.length)
+                        usage();
+                    fileName = args[i];
+                    break;
+                case "--forward":
+                    forward = true;
+                    break;
+                case "--kinds":
+                    if (++i == args.length)
+                        usage();
+                    kinds = EnumSet.noneOf(EdgeKind.class);
+                    for (String label : args[i].split(",")) {
+                        EdgeKind kind = EdgeKind.fromLabel(label.trim());
+                        if (kind == null)
+                            usage();
+                        kinds.add(kind);
+                    }
+                    break;
+                case "--sdg":
+                    options.setSdg(true);
+                    break;
+                case "--reaching-definitions":
+                    options.setReachingDefinitions(true);
+                    break;
+                default:
+                    usage();
+            }
+        }
+
+        Slicer slicer = null;
+        try {
+            slicer = load(Paths.get(args[0]), options);
+        } catch (IOException e) {
+            System.err.println("Could not read " + args[0] + " - " + e.getMessage());
+            System.exit(1);
+        }
+        if (slicer == null)
+            System.exit(2);
+
+        long start = System.nanoTime();
+        BitSet criterion = slicer.criterion(fileName, line, variable);
+        if (criterion.isEmpty()) {
+            System.err.println("No node matches " + args[1]);
+            System.exit(2);
+        }
+        BitSet slice = forward ? slicer.forward(criterion, kinds) : slicer.backward(criterion, kinds);
+        long elapsed = System.nanoTime() - start;
+        print(slicer, slice);
+        System.err.printf("Sliced %d of %d nodes in %.2f ms%n", slice.cardinality(), slicer.getNodeCount(), elapsed / 1e6);
+    }
+
+    /**
+     * Prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Opens a graph store, or analyzes a source file.
+     *
+     * @param path the path of the store or the source file
+     * @param options the options of the analysis
+     * @return the slicer of the graph, null when the source file could not be parsed
+     * @throws IOException Signals that the file could not be read.
+     */
+    private static Slicer load(Path path, AnalysisOptions options) throws IOException {
+        if (path.toString().endsWith("." + GraphStore.EXTENSION))
+            return Slicer.of(GraphStore.open(path));
+        PDGCore core = new PDGCore(options);
+        CompactGraph graph = core.addFile(path, diagnostic -> System.err.println(diagnostic));
+        return graph == null ? null : Slicer.of(graph, core::fileName);
+    }
+
+    /**
+     * Prints the nodes of a slice in file and line order, with the first line of their statement.
+     *
+     * @param slicer the slicer
+     * @param slice the slice
+     */
+    private static void print(Slicer slicer, BitSet slice) {
+        slice.stream().boxed()
+                .filter(node -> slicer.getFileName(node) != null)
+                .sorted((a, b) -> {
+                    int byFile = slicer.getFileName(a).compareTo(slicer.getFileName(b));
+                    return byFile != 0 ? byFile : Integer.compare(slicer.getLine(a), slicer.getLine(b));
+                })
+                .forEach(node -> {
+                    String label = slicer.getLabel(node);
+                    int end = label.indexOf('\n');
+                    System.out.println(slicer.getFileName(node) + ":" + slicer.getLine(node) + "\t" + (end < 0 ? label : label.substring(0, end)).trim());
+                });
+    }
+}
@@ -0,0 +1,276 @@
+package pdg_gui;
+
+import com.jgraph.layout.JGraphFacade;
+import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
+import graphStore.GraphStore;
+import graphStructures.CompactGraph;
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgraph.graph.AttributeMap;
+import org.jgraph.graph.DefaultCellViewFactory;
+import org.jgraph.graph.GraphConstants;
+import org.jgraph.graph.GraphLayoutCache;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.ext.JGraphModelAdapter;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import pdg.FileAnalysis;
+import pdg.PDGCore;
+
+import javax.swing.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The Class AnalysisWorker. Analyzes a file and lays out its graph away from the event dispatch thread,
+ * then hands the laid out graph back to the event dispatch thread in one go. A file that was laid out
+ * before reuses its positions from the layout cache instead. A graph store is opened instead of analyzed. Cancelling the worker takes effect at the
+ * end of the current stage and discards the graph, which is not stored in the layout cache either. As a cancelled worker is done at once while its
+ * background task runs to the end of its stage, the worker only ends once both happened.
+ */
+class AnalysisWorker extends SwingWorker<AnalysisWorker.LaidOutGraph, String> {
+
+    /** The core. */
+    private final PDGCore core;
+
+    /** The file. */
+    private final File file;
+
+    /** The layout cache. */
+    private final LayoutCache layouts;
+
+    /** The diagnostics, flushed to the console when the worker ends. */
+    private final TextAreaDiagnostics diagnostics;
+
+    /** The status label. */
+    private final JLabel status;
+
+    /** Called on the event dispatch thread when the worker ends, with null when there is no graph to show. */
+    private final Consumer<LaidOutGraph> onDone;
+
+    /** The number of the background task returning and the worker being done still to happen before the worker ends. */
+    private final AtomicInteger pending = new AtomicInteger(2);
+
+    /**
+     * Instantiates a new analysis worker.
+     *
+     * @param core the core
+     * @param file the file
+     * @param layouts the layout cache
+     * @param diagnostics the diagnostics
+     * @param status the status label
+     * @param onDone called on the event dispatch thread when the worker ends
+     */
+    AnalysisWorker(PDGCore core, File file, LayoutCache layouts, TextAreaDiagnostics diagnostics, JLabel status, Consumer<LaidOutGraph> onDone) {
+        this.core = core;
+        this.file = file;
+        this.layouts = layouts;
+        this.diagnostics = diagnostics;
+        this.status = status;
+        this.onDone = onDone;
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.SwingWorker#doInBackground()
+     */
+    @Override
+    protected LaidOutGraph doInBackground() throws Exception {
+        try {
+            return analyze();
+        } finally {
+            // a worker done before its background task returned was cancelled, so it has no graph
+            if (pending.decrementAndGet() == 0)
+                SwingUtilities.invokeLater(() -> onDone.accept(null));
+        }
+    }
+
+    /**
+     * Analyzes the file and lays out its graph, stopping between the stages once the worker is cancelled.
+     *
+     * @return the laid out graph, null when there is none or the worker was cancelled
+     * @throws Exception the exception
+     */
+    private LaidOutGraph analyze() throws Exception {
+        setProgress(5);
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> hrefGraph;
+        byte[] content = Files.readAllBytes(file.toPath());
+        if (isCancelled())
+            return null;
+        if (file.getName().endsWith("." + GraphStore.EXTENSION)) {
+            publish("Opening " + file.getName());
+            hrefGraph = GraphStore.open(file.toPath()).toGraph();
+        } else {
+            publish("Analyzing " + file.getName());
+            CompactGraph graph = core.addFile(file.getPath(), file.lastModified(), content, diagnostics);
+            if (graph == null)
+                return null;
+            hrefGraph = graph.asDirectedGraph();
+        }
+        if (isCancelled())
+            return null;
+
+        setProgress(50);
+        String contentHash = FileAnalysis.contentHash(content);
+        LevelOfDetail detail = new LevelOfDetail(hrefGraph);
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> view = detail.view();
+        @SuppressWarnings("rawtypes")
+        JGraphModelAdapter<GraphNode, RelationshipEdge> model = new JGraphModelAdapter<>(view);
+        GraphLayoutCache cache = new GraphLayoutCache(model, new DefaultCellViewFactory());
+        if (isCancelled())
+            return null;
+        Map<Object, Object> nested = layouts.fromContent(contentHash, view, model);
+        if (nested != null) {
+            publish("Reused the layout of " + file.getName());
+        } else if ((nested = layouts.fromPreviousLayout(file.getPath(), view, model)) != null) {
+            publish("Placed the changed nodes of " + file.getName());
+        } else {
+            publish("Laying out " + view.vertexSet().size() + " of " + hrefGraph.vertexSet().size() + " nodes");
+            LaidOutGraph graph = layout(detail, view, model, cache);
+            if (isCancelled())
+                return null;
+            layouts.store(file.getPath(), contentHash, view, model);
+            setProgress(100);
+            return graph;
+        }
+        cache.edit(nested);
+        if (isCancelled())
+            return null;
+        layouts.store(file.getPath(), contentHash, view, model);
+        setProgress(100);
+        return new LaidOutGraph(detail, view, model, cache);
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.SwingWorker#process(java.util.List)
+     */
+    @Override
+    protected void process(List<String> stages) {
+        status.setText(stages.get(stages.size() - 1));
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.SwingWorker#done()
+     */
+    @Override
+    protected void done() {
+        diagnostics.flush();
+        LaidOutGraph graph = null;
+        try {
+            graph = get();
+            status.setText(graph == null ? "" : "Done");
+        } catch (CancellationException e) {
+            status.setText("Cancelled");
+        } catch (InterruptedException | ExecutionException e) {
+            status.setText("Analysis failed - " + e.getCause());
+            e.printStackTrace();
+        }
+        if (pending.decrementAndGet() == 0)
+            onDone.accept(graph);
+    }
+
+    /**
+     * Builds the JGraph model of the shown part of a graph and lays it out. The model and its layout
+     * cache are not shown yet, so this can run on any thread.
+     *
+     * @param detail the level of detail of the graph
+     * @return the laid out graph
+     */
+    static LaidOutGraph layout(LevelOfDetail detail) {
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> view = detail.view();
+        @SuppressWarnings("rawtypes")
+        JGraphModelAdapter<GraphNode, RelationshipEdge> model = new JGraphModelAdapter<>(view);
+        return layout(detail, view, model, new GraphLayoutCache(model, new DefaultCellViewFactory()));
+    }
+
+    /**
+     * Lays out the model of a shown graph with the hierarchical layout. Only the control dependence
+     * edges are laid out, the data dependence edges are then drawn straight between the placed nodes:
+     * with them the crossing reduction of the layout takes seconds on a few hundred nodes. This is
+     * intended and places the nodes differently than laying out every edge did: each node sits in the
+     * rank of its control dependence depth, under the statement it depends on.
+     *
+     * @param detail the level of detail of the graph
+     * @param view the shown graph
+     * @param model the model of the shown graph
+     * @param cache the layout cache of the model
+     * @return the laid out graph
+     */
+    private static LaidOutGraph layout(LevelOfDetail detail, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> view,
+                                       @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model, GraphLayoutCache cache) {
+        @SuppressWarnings("rawtypes")
+        DirectedGraph<GraphNode, RelationshipEdge> tree = new DefaultDirectedGraph<>(RelationshipEdge.class);
+        view.vertexSet().forEach(tree::addVertex);
+        for (RelationshipEdge<?> edge : view.edgeSet())
+            if (edge.getKind() == EdgeKind.CONTROL && !view.getEdgeSource(edge).equals(view.getEdgeTarget(edge)))
+                tree.addEdge(view.getEdgeSource(edge), view.getEdgeTarget(edge), new RelationshipEdge<>(EdgeKind.CONTROL));
+        @SuppressWarnings("rawtypes")
+        JGraphModelAdapter<GraphNode, RelationshipEdge> treeModel = new JGraphModelAdapter<>(tree);
+        GraphLayoutCache treeCache = new GraphLayoutCache(treeModel, new DefaultCellViewFactory());
+
+        JGraphFacade facade = new JGraphFacade(treeCache);
+        facade.setIgnoresUnconnectedCells(false);
+        JGraphHierarchicalLayout layout = new JGraphHierarchicalLayout();
+        layout.setOrientation(SwingConstants.NORTH);
+        layout.setIntraCellSpacing(150.0);
+        layout.setLayoutFromSinks(false);
+        layout.run(facade);
+        Map<?, ?> nested = facade.createNestedMap(true, true);
+        if (nested != null)
+            treeCache.edit(nested);
+
+        Map<Object, Object> bounds = new Hashtable<>();
+        for (GraphNode node : view.vertexSet()) {
+            AttributeMap attributes = new AttributeMap();
+            GraphConstants.setBounds(attributes, GraphConstants.getBounds(treeModel.getVertexCell(node).getAttributes()));
+            bounds.put(model.getVertexCell(node), attributes);
+        }
+        cache.edit(bounds);
+        return new LaidOutGraph(detail, view, model, cache);
+    }
+
+    /**
+     * The Class LaidOutGraph. The shown part of a graph with its JGraph model and the layout cache holding its positions.
+     */
+    static class LaidOutGraph {
+
+        /** The level of detail, holding the full graph. */
+        final LevelOfDetail detail;
+
+        /** The shown graph. */
+        @SuppressWarnings("rawtypes")
+        final DirectedGraph<GraphNode, RelationshipEdge> view;
+
+        /** The model. */
+        @SuppressWarnings("rawtypes")
+        final JGraphModelAdapter<GraphNode, RelationshipEdge> model;
+
+        /** The layout cache. */
+        final GraphLayoutCache cache;
+
+        /**
+         * Instantiates a new laid out graph.
+         *
+         * @param detail the level of detail
+         * @param view the shown graph
+         * @param model the model
+         * @param cache the layout cache
+         */
+        LaidOutGraph(LevelOfDetail detail, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> view,
+                     @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model, GraphLayoutCache cache) {
+            this.detail = detail;
+            this.view = view;
+            this.model = model;
+            this.cache = cache;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package pdg_gui;
+
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgraph.graph.AttributeMap;
+import org.jgraph.graph.GraphConstants;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.ext.JGraphModelAdapter;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class LayoutCache. Remembers the positions of laid out graphs so they are not laid out again.
+ * Layouts are kept by file content hash, and the last layout of each file is kept by path so an
+ * edited file can reuse the positions of the statements it still has. Nodes are matched by AST kind
+ * and label rather than by line, since an edit moves every statement below it.
+ */
+class LayoutCache {
+
+    /** The most layouts kept by content hash. */
+    private static final int MAX_LAYOUTS = 32;
+
+    /** Above this share of new nodes the graph is laid out again instead of patched. */
+    private static final double MAX_CHANGED = 0.5;
+
+    /** The vertical space between a node and a node placed under it. */
+    private static final double ROW_SPACING = 50.0;
+
+    /** The horizontal space between nodes placed under the same node. */
+    private static final double COLUMN_SPACING = 30.0;
+
+    /** The layouts by content hash, least recently used first. */
+    private final LinkedHashMap<String, Layout> byContent = new LinkedHashMap<String, Layout>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+            return size() > MAX_LAYOUTS;
+        }
+    };
+
+    /** The last layout of each file, by path. */
+    private final HashMap<String, Layout> byFile = new HashMap<>();
+
+    /**
+     * Places the graph from the layout of the same content, if cached.
+     *
+     * @param contentHash the content hash
+     * @param hrefGraph the href graph
+     * @param model the model of the graph
+     * @return the nested map of the positions, null when the content was not laid out before
+     */
+    synchronized Map<Object, Object> fromContent(String contentHash, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+                                                 @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model) {
+        Layout layout = byContent.get(contentHash);
+        if (layout == null)
+            return null;
+        Map<Object, Object> nested = new Hashtable<>();
+        Map<GraphNode, String> keys = keys(hrefGraph);
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            Rectangle2D bounds = layout.nodes.get(keys.get(node));
+            if (bounds == null)
+                return null;
+            nested.put(model.getVertexCell(node), boundsAttributes(bounds));
+        }
+        addEdgePoints(layout, hrefGraph, model, keys, nested);
+        return nested;
+    }
+
+    /**
+     * Places the graph from the last layout of the same file. The nodes found in that layout keep their
+     * position and every new node is placed under its control dependence parent.
+     *
+     * @param path the file path
+     * @param hrefGraph the href graph
+     * @param model the model of the graph
+     * @return the nested map of the positions, null when the file was not laid out before or changed too much
+     */
+    synchronized Map<Object, Object> fromPreviousLayout(String path, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+                                                        @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model) {
+        Layout layout = byFile.get(path);
+        if (layout == null)
+            return null;
+        Map<GraphNode, String> keys = keys(hrefGraph);
+        int changed = 0;
+        for (GraphNode node : hrefGraph.vertexSet())
+            if (!layout.nodes.containsKey(keys.get(node)))
+                changed++;
+        if (changed > hrefGraph.vertexSet().size() * MAX_CHANGED)
+            return null;
+
+        HashMap<GraphNode, Rectangle2D> placed = new HashMap<>();
+        double bottom = 0;
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            Rectangle2D bounds = layout.nodes.get(keys.get(node));
+            if (bounds != null) {
+                placed.put(node, bounds);
+                bottom = Math.max(bottom, bounds.getMaxY());
+            }
+        }
+        // the vertex set is in AST order, so a parent is placed before its children
+        HashMap<GraphNode, Double> nextChildX = new HashMap<>();
+        double left = 0;
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            if (placed.containsKey(node))
+                continue;
+            Rectangle2D size = GraphConstants.getBounds(model.getVertexCell(node).getAttributes());
+            GraphNode parent = controlParent(hrefGraph, node);
+            Rectangle2D parentBounds = parent == null ? null : placed.get(parent);
+            Rectangle2D bounds;
+            if (parentBounds != null) {
+                // right of the children the parent already has, so the new node does not cover them
+                double x = nextChildX.computeIfAbsent(parent, p -> rightOfChildren(hrefGraph, p, placed, parentBounds.getX()));
+                bounds = new Rectangle2D.Double(x, parentBounds.getMaxY() + ROW_SPACING, size.getWidth(), size.getHeight());
+                nextChildX.put(parent, bounds.getMaxX() + COLUMN_SPACING);
+            } else {
+                bounds = new Rectangle2D.Double(left, bottom + ROW_SPACING, size.getWidth(), size.getHeight());
+                left += size.getWidth() + COLUMN_SPACING;
+            }
+            placed.put(node, bounds);
+        }
+
+        Map<Object, Object> nested = new Hashtable<>();
+        for (Map.Entry<GraphNode, Rectangle2D> entry : placed.entrySet())
+            nested.put(model.getVertexCell(entry.getKey()), boundsAttributes(entry.getValue()));
+        addEdgePoints(layout, hrefGraph, model, keys, nested);
+        return nested;
+    }
+
+    /**
+     * Remembers the positions of a laid out graph, by content and as the last layout of its file.
+     *
+     * @param path the file path
+     * @param contentHash the content hash
+     * @param hrefGraph the href graph
+     * @param model the model of the graph, holding the positions
+     */
+    synchronized void store(String path, String contentHash, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+                            @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model) {
+        Layout layout = new Layout();
+        Map<GraphNode, String> keys = keys(hrefGraph);
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            Rectangle2D bounds = GraphConstants.getBounds(model.getVertexCell(node).getAttributes());
+            if (bounds != null)
+                layout.nodes.put(keys.get(node), (Rectangle2D) bounds.clone());
+        }
+        for (RelationshipEdge<?> edge : hrefGraph.edgeSet()) {
+            List<?> points = GraphConstants.getPoints(model.getEdgeCell(edge).getAttributes());
+            if (points != null)
+                layout.edges.put(edgeKey(hrefGraph, keys, edge), new ArrayList<>(points));
+        }
+        byContent.put(contentHash, layout);
+        byFile.put(path, layout);
+    }
+
+    /**
+     * Gets the key of every node: its kind, the first line of its label and how many nodes with the same kind and
+     * first line come before it. Only the first line is used, since the label of a class or a method holds its whole body.
+     *
+     * @param hrefGraph the href graph
+     * @return the keys
+     */
+    private static Map<GraphNode, String> keys(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph) {
+        HashMap<String, Integer> seen = new HashMap<>();
+        HashMap<GraphNode, String> keys = new HashMap<>();
+        for (GraphNode node : hrefGraph.vertexSet()) {
+            String label = node.getLabel();
+            int end = label.indexOf('\n');
+            String key = node.getKind() + ":" + (end < 0 ? label : label.substring(0, end)).trim();
+            keys.put(node, key + "#" + seen.merge(key, 1, Integer::sum));
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the key of an edge from the keys of its ends and its type.
+     *
+     * @param hrefGraph the href graph
+     * @param keys the node keys
+     * @param edge the edge
+     * @return the key
+     */
+    private static String edgeKey(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, Map<GraphNode, String> keys, RelationshipEdge<?> edge) {
+        return keys.get(hrefGraph.getEdgeSource(edge)) + "->" + keys.get(hrefGraph.getEdgeTarget(edge)) + ":" + edge;
+    }
+
+    /**
+     * Gets the source of the first control dependence edge reaching a node.
+     *
+     * @param hrefGraph the href graph
+     * @param node the node
+     * @return the parent, null when there is none
+     */
+    private static GraphNode controlParent(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, GraphNode node) {
+        for (RelationshipEdge<?> edge : hrefGraph.incomingEdgesOf(node))
+            if (edge.getKind() == EdgeKind.CONTROL && !hrefGraph.getEdgeSource(edge).equals(node))
+                return hrefGraph.getEdgeSource(edge);
+        return null;
+    }
+
+    /**
+     * Gets where the next child of a node goes: right of its placed control dependence children.
+     *
+     * @param hrefGraph the href graph
+     * @param parent the parent
+     * @param placed the placed nodes
+     * @param x the x of the parent, used when it has no placed child
+     * @return the x of the next child
+     */
+    private static double rightOfChildren(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, GraphNode parent,
+                                          Map<GraphNode, Rectangle2D> placed, double x) {
+        for (RelationshipEdge<?> edge : hrefGraph.outgoingEdgesOf(parent)) {
+            Rectangle2D child = placed.get(hrefGraph.getEdgeTarget(edge));
+            if (edge.getKind() == EdgeKind.CONTROL && child != null && !hrefGraph.getEdgeTarget(edge).equals(parent))
+                x = Math.max(x, child.getMaxX() + COLUMN_SPACING);
+        }
+        return x;
+    }
+
+    /**
+     * Adds the points of the cached edges whose ends are both still in the graph.
+     *
+     * @param layout the layout
+     * @param hrefGraph the href graph
+     * @param model the model
+     * @param keys the node keys
+     * @param nested the nested map
+     */
+    private static void addEdgePoints(Layout layout, @SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph,
+                                      @SuppressWarnings("rawtypes") JGraphModelAdapter<GraphNode, RelationshipEdge> model,
+                                      Map<GraphNode, String> keys, Map<Object, Object> nested) {
+        for (RelationshipEdge<?> edge : hrefGraph.edgeSet()) {
+            List<Object> points = layout.edges.get(edgeKey(hrefGraph, keys, edge));
+            if (points == null)
+                continue;
+            AttributeMap attributes = new AttributeMap();
+            List<Object> copy = new ArrayList<>();
+            for (Object point : points)
+                copy.add(point instanceof Point2D ? ((Point2D) point).clone() : point);
+            GraphConstants.setPoints(attributes, copy);
+            nested.put(model.getEdgeCell(edge), attributes);
+        }
+    }
+
+    /**
+     * Gets the attributes setting the bounds of a vertex.
+     *
+     * @param bounds the bounds
+     * @return the attributes
+     */
+    private static AttributeMap boundsAttributes(Rectangle2D bounds) {
+        AttributeMap attributes = new AttributeMap();
+        GraphConstants.setBounds(attributes, (Rectangle2D) bounds.clone());
+        return attributes;
+    }
+
+    /**
+     * The Class Layout. The positions of the nodes and the points of the edges of a laid out graph, by key.
+     */
+    private static class Layout {
+
+        /** The node bounds. */
+        final HashMap<String, Rectangle2D> nodes = new HashMap<>();
+
+        /** The edge points. */
+        final HashMap<String, List<Object>> edges = new HashMap<>();
+    }
+}
@@ -0,0 +1,232 @@
+package pdg_gui;
+
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The Class LevelOfDetail. Decides which part of a graph is shown. Methods and loops can be collapsed
+ * into a summary node that stands for every node they control, so only the cells of the shown nodes
+ * are ever built. Graphs up to DETAIL_LIMIT nodes start fully expanded, larger ones start with every
+ * method and loop collapsed and are expanded one method or loop at a time.
+ */
+class LevelOfDetail {
+
+    /** The largest graph shown fully expanded from the start. */
+    static final int DETAIL_LIMIT = 400;
+
+    /** The kinds of the nodes that can be collapsed. */
+    private static final HashSet<Integer> COLLAPSIBLE = new HashSet<>(Arrays.asList(
+            GraphNode.kindId("MethodDeclaration"), GraphNode.kindId("ForStmt"),
+            GraphNode.kindId("WhileStmt"), GraphNode.kindId("DoStmt")));
+
+    /** The full graph. */
+    @SuppressWarnings("rawtypes")
+    private final DirectedGraph<GraphNode, RelationshipEdge> hrefGraph;
+
+    /** The control dependence children of each node. */
+    private final HashMap<GraphNode, List<GraphNode>> children = new HashMap<>();
+
+    /** The nodes without a control dependence parent. */
+    private final ArrayList<GraphNode> roots = new ArrayList<>();
+
+    /** The number of nodes each node controls, directly or not. */
+    private final HashMap<GraphNode, Integer> controlled = new HashMap<>();
+
+    /** The number of methods and loops that can be collapsed. */
+    private final int collapsible;
+
+    /** The expanded methods and loops. */
+    private final HashSet<GraphNode> expanded = new HashSet<>();
+
+    /**
+     * Instantiates a new level of detail for a graph.
+     *
+     * @param hrefGraph the full graph
+     */
+    LevelOfDetail(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph) {
+        this.hrefGraph = hrefGraph;
+        HashSet<GraphNode> hasParent = new HashSet<>();
+        for (RelationshipEdge<?> edge : hrefGraph.edgeSet()) {
+            GraphNode source = hrefGraph.getEdgeSource(edge);
+            GraphNode target = hrefGraph.getEdgeTarget(edge);
+            if (edge.getKind() == EdgeKind.CONTROL && !source.equals(target) && hasParent.add(target))
+                children.computeIfAbsent(source, n -> new ArrayList<>()).add(target);
+        }
+        for (GraphNode node : hrefGraph.vertexSet())
+            if (!hasParent.contains(node))
+                roots.add(node);
+        countControlled();
+        int count = 0;
+        for (GraphNode node : hrefGraph.vertexSet())
+            if (isCollapsible(node))
+                count++;
+        collapsible = count;
+        if (hrefGraph.vertexSet().size() <= DETAIL_LIMIT)
+            expandAll();
+    }
+
+    /**
+     * Counts the nodes each node controls, children before parents.
+     */
+    private void countControlled() {
+        ArrayList<GraphNode> order = new ArrayList<>();
+        ArrayDeque<GraphNode> stack = new ArrayDeque<>(roots);
+        while (!stack.isEmpty()) {
+            GraphNode node = stack.pop();
+            order.add(node);
+            stack.addAll(childrenOf(node));
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            int count = 0;
+            for (GraphNode child : childrenOf(order.get(i)))
+                count += 1 + controlled.get(child);
+            controlled.put(order.get(i), count);
+        }
+    }
+
+    /**
+     * Gets the full graph.
+     *
+     * @return the full graph
+     */
+    @SuppressWarnings("rawtypes")
+    DirectedGraph<GraphNode, RelationshipEdge> getGraph() {
+        return hrefGraph;
+    }
+
+    /**
+     * Whether the graph is too large to be shown fully expanded.
+     *
+     * @return true, if large
+     */
+    boolean isLarge() {
+        return hrefGraph.vertexSet().size() > DETAIL_LIMIT;
+    }
+
+    /**
+     * Builds the graph that is shown: the visible nodes, a summary node for each collapsed method or loop,
+     * and the edges of the hidden nodes moved to the summary node standing for them.
+     *
+     * @return the shown graph
+     */
+    @SuppressWarnings("rawtypes")
+    DirectedGraph<GraphNode, RelationshipEdge> view() {
+        if (expanded.size() == collapsible)
+            return hrefGraph;
+        DirectedGraph<GraphNode, RelationshipEdge> view = new DefaultDirectedGraph<>(RelationshipEdge.class);
+        HashMap<GraphNode, GraphNode> shownAs = new HashMap<>();
+        ArrayDeque<GraphNode> stack = new ArrayDeque<>();
+        for (int i = roots.size() - 1; i >= 0; i--)
+            stack.push(roots.get(i));
+        while (!stack.isEmpty()) {
+            GraphNode node = stack.pop();
+            if (isCollapsible(node) && !expanded.contains(node)) {
+                SummaryNode summary = new SummaryNode(node, controlled.get(node));
+                view.addVertex(summary);
+                hide(node, summary, shownAs);
+                continue;
+            }
+            view.addVertex(node);
+            shownAs.put(node, node);
+            List<GraphNode> nodeChildren = childrenOf(node);
+            for (int i = nodeChildren.size() - 1; i >= 0; i--)
+                stack.push(nodeChildren.get(i));
+        }
+        for (RelationshipEdge<?> edge : hrefGraph.edgeSet()) {
+            GraphNode source = hrefGraph.getEdgeSource(edge);
+            GraphNode target = hrefGraph.getEdgeTarget(edge);
+            GraphNode shownSource = shownAs.get(source);
+            GraphNode shownTarget = shownAs.get(target);
+            // edges inside a collapsed method or loop disappear with it
+            if (shownSource == null || shownTarget == null)
+                continue;
+            if (shownSource == shownTarget && (shownSource instanceof SummaryNode || !source.equals(target)))
+                continue;
+            if (!view.containsEdge(shownSource, shownTarget))
+                view.addEdge(shownSource, shownTarget, new RelationshipEdge(edge.getKind()));
+        }
+        return view;
+    }
+
+    /**
+     * Shows a node and every node it controls as a summary node.
+     *
+     * @param node the node
+     * @param summary the summary node
+     * @param shownAs the node each node is shown as
+     */
+    private void hide(GraphNode node, SummaryNode summary, HashMap<GraphNode, GraphNode> shownAs) {
+        ArrayDeque<GraphNode> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            GraphNode hidden = stack.pop();
+            shownAs.put(hidden, summary);
+            stack.addAll(childrenOf(hidden));
+        }
+    }
+
+    /**
+     * Expands a summary node, or collapses a shown method or loop.
+     *
+     * @param node the shown node
+     * @return true, if the shown graph changed
+     */
+    boolean toggle(GraphNode node) {
+        if (node instanceof SummaryNode)
+            return expanded.add(((SummaryNode) node).root);
+        if (isCollapsible(node))
+            return expanded.remove(node);
+        return false;
+    }
+
+    /**
+     * Collapses every method and loop.
+     *
+     * @return true, if the shown graph changed
+     */
+    boolean collapseAll() {
+        boolean changed = !expanded.isEmpty();
+        expanded.clear();
+        return changed;
+    }
+
+    /**
+     * Expands every method and loop.
+     */
+    private void expandAll() {
+        for (GraphNode node : hrefGraph.vertexSet())
+            if (isCollapsible(node))
+                expanded.add(node);
+    }
+
+    /**
+     * Whether a node is a method or a loop that controls other nodes.
+     *
+     * @param node the node
+     * @return true, if collapsible
+     */
+    private boolean isCollapsible(GraphNode node) {
+        return COLLAPSIBLE.contains(node.getKind()) && controlled.getOrDefault(node, 0) > 0;
+    }
+
+    /**
+     * Gets the control dependence children of a node.
+     *
+     * @param node the node
+     * @return the children
+     */
+    private List<GraphNode> childrenOf(GraphNode node) {
+        return children.getOrDefault(node, Collections.emptyList());
+    }
+}
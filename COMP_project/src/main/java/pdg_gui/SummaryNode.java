@@ -0,0 +1,50 @@
+package pdg_gui;
+
+import graphStructures.GraphNode;
+
+/**
+ * The Class SummaryNode. Stands for a collapsed method or loop and every node it controls.
+ */
+class SummaryNode extends GraphNode {
+
+    /** The collapsed method or loop. */
+    final GraphNode root;
+
+    /**
+     * Instantiates a new summary node.
+     *
+     * @param root the collapsed method or loop
+     * @param hidden the number of nodes it stands for, the root excluded
+     */
+    SummaryNode(GraphNode root, int hidden) {
+        super(root.getLine(), firstLine(root.getLabel()) + " ... (+" + hidden + " nodes)");
+        this.root = root;
+    }
+
+    /**
+     * Gets the first line of a label.
+     *
+     * @param label the label
+     * @return the first line
+     */
+    private static String firstLine(String label) {
+        int end = label.indexOf('\n');
+        return (end < 0 ? label : label.substring(0, end)).trim();
+    }
+
+    /* (non-Javadoc)
+     * @see graphStructures.GraphNode#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SummaryNode && ((SummaryNode) obj).root.equals(root);
+    }
+
+    /* (non-Javadoc)
+     * @see graphStructures.GraphNode#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return ~root.hashCode();
+    }
+}
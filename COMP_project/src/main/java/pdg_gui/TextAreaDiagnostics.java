@@ -0,0 +1,67 @@
+package pdg_gui;
+
+import pdg.Diagnostic;
+import pdg.DiagnosticsListener;
+
+import javax.swing.*;
+
+/**
+ * The Class TextAreaDiagnostics. Buffers the diagnostics in the console format and appends them
+ * to the console text area in one go when flushed.
+ */
+class TextAreaDiagnostics implements DiagnosticsListener {
+
+    /** The console text. */
+    private final JTextArea consoleText;
+
+    /** The pending text. */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** Whether the semantic errors header was written for the current file. */
+    private boolean semanticHeader = false;
+
+    /**
+     * Instantiates a new text area diagnostics adapter.
+     *
+     * @param consoleText the console text
+     */
+    TextAreaDiagnostics(JTextArea consoleText) {
+        this.consoleText = consoleText;
+    }
+
+    /* (non-Javadoc)
+     * @see pdg.DiagnosticsListener#report(pdg.Diagnostic)
+     */
+    @Override
+    public synchronized void report(Diagnostic diagnostic) {
+        if (diagnostic.getKind() == Diagnostic.Kind.SYNTAX) {
+            buffer.append("Syntatic Error - ").append(diagnostic.getMessage()).append("\n");
+            return;
+        }
+        if (!semanticHeader) {
+            buffer.append("Semantic errors:\n");
+            semanticHeader = true;
+        }
+        buffer.append(diagnostic.getMessage()).append("\n");
+    }
+
+    /* (non-Javadoc)
+     * @see pdg.DiagnosticsListener#fileAnalyzed(java.lang.String, int)
+     */
+    @Override
+    public synchronized void fileAnalyzed(String file, int semanticErrors) {
+        if (semanticErrors == 0)
+            buffer.append("No semantic errors were found\n");
+        else
+            buffer.append("Ended semantic errors\n");
+        semanticHeader = false;
+    }
+
+    /**
+     * Appends the buffered text to the console. Must be called on the event dispatch thread.
+     */
+    synchronized void flush() {
+        consoleText.append(buffer.toString());
+        buffer.setLength(0);
+    }
+}
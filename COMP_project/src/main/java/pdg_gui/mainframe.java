@@ -1,28 +1,37 @@
 package pdg_gui;
 
-import com.github.javaparser.ParseException;
-import com.jgraph.layout.JGraphFacade;
-import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
+import graphExport.GraphExporter;
+import graphExport.GraphExporters;
+import graphStore.GraphStore;
+import graphStore.GraphStoreWriter;
 import graphStructures.GraphNode;
 import graphStructures.RelationshipEdge;
 import org.jgraph.JGraph;
+import org.jgraph.graph.AttributeMap;
+import org.jgraph.graph.DefaultGraphCell;
+import org.jgraph.graph.GraphConstants;
 import org.jgrapht.DirectedGraph;
-import org.jgrapht.ListenableGraph;
-import org.jgrapht.ext.DOTExporter;
 import org.jgrapht.ext.JGraphModelAdapter;
-import org.jgrapht.ext.StringEdgeNameProvider;
-import org.jgrapht.ext.StringNameProvider;
 import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.ListenableDirectedGraph;
 import pdg.PDGCore;
+import slicing.Slicer;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Hashtable;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The Class mainframe - Main GUI.
@@ -48,9 +57,51 @@ public class mainframe extends JFrame {
     /** The graph scroll. */
     private JScrollPane graphScroll;
     
+    /** The code text. */
+    private JTextArea txtCodeGoesHere;
+
     /** The console text. */
     private JTextArea consoleText;
 
+    /** The positions of the graphs shown so far. */
+    private final LayoutCache layouts = new LayoutCache();
+
+    /** The worker of the running analysis, null when none is running. */
+    private AnalysisWorker worker;
+
+    /** The worker laying out the graph again after an expand or a collapse, null when none is running. */
+    private SwingWorker<AnalysisWorker.LaidOutGraph, Void> viewWorker;
+
+    /** The level of detail of the shown graph. */
+    private LevelOfDetail detail;
+
+    /** The shown graph. */
+    private AnalysisWorker.LaidOutGraph shown;
+
+    /** The slicer of the graph, built on the first slice. */
+    private Slicer slicer;
+
+    /** The highlighted slice, null when none is. */
+    private BitSet slice;
+
+    /** The background of the nodes of a slice. */
+    private static final Color SLICE_COLOR = new Color(140, 200, 255);
+
+    /** Below this zoom a large graph collapses back to its summary nodes. */
+    private static final double MIN_DETAIL_SCALE = 0.5;
+
+    /** The call graph button. */
+    private JButton callGraphButton;
+
+    /** The cancel button. */
+    private JButton cancelButton;
+
+    /** The progress bar. */
+    private JProgressBar progressBar;
+
+    /** The status of the running analysis. */
+    private JLabel status;
+
     /**
      * Instantiates a new mainframe and initializes all the containers as well as their needed listeners.
      */
@@ -78,7 +129,7 @@ public class mainframe extends JFrame {
         resetGraph();
         codePanel.setLayout(new BorderLayout(0, 0));
 
-        JTextArea txtCodeGoesHere = new JTextArea();
+        txtCodeGoesHere = new JTextArea();
         txtCodeGoesHere.setTabSize(2);
         txtCodeGoesHere.setFont(new Font("Monospaced", Font.PLAIN, 11));
         txtCodeGoesHere.setEditable(false);
@@ -100,8 +151,21 @@ public class mainframe extends JFrame {
         JPanel buttonsPane = new JPanel();
         optionsPane.add(buttonsPane, BorderLayout.EAST);
 
-        JButton button = new JButton("Call Graph");
-        buttonsPane.add(button);
+        JPanel progressPane = new JPanel();
+        optionsPane.add(progressPane, BorderLayout.WEST);
+
+        progressBar = new JProgressBar(0, 100);
+        progressPane.add(progressBar);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        progressPane.add(cancelButton);
+
+        status = new JLabel();
+        progressPane.add(status);
+
+        callGraphButton = new JButton("Call Graph");
+        buttonsPane.add(callGraphButton);
 
         JButton button_1 = new JButton("Choose File");
         buttonsPane.add(button_1);
@@ -109,12 +173,18 @@ public class mainframe extends JFrame {
         JButton btnExportTodot = new JButton("Export to .dot file");
         buttonsPane.add(btnExportTodot);
 
+        JButton sliceButton = new JButton("Slice");
+        buttonsPane.add(sliceButton);
+
         panel = new JPanel();
         panel.setBorder(new EtchedBorder(EtchedBorder.LOWERED, null, null));
         graphPane.add(panel);
         panel.setLayout(new BorderLayout(0, 0));
 
-        JGraph graph = getJGraph();
+        AnalysisWorker.LaidOutGraph empty = AnalysisWorker.layout(new LevelOfDetail(hrefGraph));
+        detail = empty.detail;
+        shown = empty;
+        JGraph graph = getJGraph(empty);
 
         graphScroll = new JScrollPane(graph, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
 
@@ -133,17 +203,33 @@ public class mainframe extends JFrame {
         consoleScroll.setPreferredSize(new Dimension(19, 200));
         console.add(consoleScroll);
 
-        button.addActionListener(e -> {
+        callGraphButton.addActionListener(e -> {
             consoleText.setText("----------------------------------------------------\n");
             runAnalysisAndMakeGraph();
         });
 
+        cancelButton.addActionListener(e -> {
+            // the worker ends once its background task returns, Call Graph stays off until then
+            if (worker != null && worker.cancel(true))
+                cancelButton.setEnabled(false);
+        });
+
         button_1.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
             int returnValue = fileChooser.showOpenDialog(null);
             if (returnValue == JFileChooser.APPROVE_OPTION) {
                 selectedFile = fileChooser.getSelectedFile();
 
+                if (selectedFile.getName().endsWith("." + GraphStore.EXTENSION)) {
+                    try {
+                        GraphStore store = GraphStore.open(selectedFile.toPath());
+                        txtCodeGoesHere.setText("Graph store of " + store.getFileCount() + " files, with " + store.getNodeCount()
+                                + " nodes and " + store.getEdgeCount() + " edges");
+                    } catch (IOException e1) {
+                        txtCodeGoesHere.setText("Could not open the graph store - " + e1.getMessage());
+                    }
+                    return;
+                }
                 try {
                     @SuppressWarnings("resource")
 					String content = new Scanner(selectedFile).useDelimiter("\\Z").next();
@@ -155,28 +241,38 @@ public class mainframe extends JFrame {
         });
 
         btnExportTodot.addActionListener(e -> {
-            FileOutputStream out;
             try {
                 checkIfFolderExists();
-                GraphNode.exporting = true;
-                String filename = JOptionPane.showInputDialog(frame, "What name do you want to give the file (must write .dot)?");
-                if (filename == null) {
-                    GraphNode.exporting = false;
+                String filename = JOptionPane.showInputDialog(frame, "What name do you want to give the file (.dot, .graphml, .json or .pdgs)?");
+                if (filename == null)
                     return;
+                if (filename.endsWith("." + GraphStore.EXTENSION)) {
+                    GraphStoreWriter.write(hrefGraph, astPrinter::fileName, new File("dotOutputs", filename).toPath());
+                    consoleText.append("Exported Graph to *." + GraphStore.EXTENSION + " file\n");
+                    JOptionPane.showMessageDialog(frame, "File saved in 'dotOutputs' folder as " + filename);
+                    return;
+                }
+                GraphExporter exporter = GraphExporters.forFileName(filename);
+                try (Writer out = new OutputStreamWriter(new FileOutputStream("dotOutputs/" + filename), StandardCharsets.UTF_8)) {
+                    exporter.export(hrefGraph, out);
                 }
-                out = new FileOutputStream("dotOutputs/" + filename);
-                @SuppressWarnings("rawtypes")
-				DOTExporter<GraphNode, RelationshipEdge> exporter = new DOTExporter<>(
-                        new StringNameProvider<>(), null,
-                        new StringEdgeNameProvider<>());
-                exporter.export(new OutputStreamWriter(out), hrefGraph);
-                out.close();
-                consoleText.setText(consoleText.getText() + "Exoprted Graph to *.dot file\n");
-                JOptionPane.showMessageDialog(frame, "File saved in 'dotOutpus' folder as " + filename);
+                consoleText.append("Exported Graph to *." + exporter.getExtension() + " file\n");
+                JOptionPane.showMessageDialog(frame, "File saved in 'dotOutputs' folder as " + filename);
             } catch (IOException e1) {
                 e1.printStackTrace();
             }
-            GraphNode.exporting = false;
+        });
+
+        sliceButton.addActionListener(e -> {
+            JTextField criterion = new JTextField(12);
+            JComboBox<String> direction = new JComboBox<>(new String[]{"Backward", "Forward"});
+            JPanel form = new JPanel(new GridLayout(2, 2));
+            form.add(new JLabel("line[:variable] or :variable"));
+            form.add(criterion);
+            form.add(new JLabel("Direction"));
+            form.add(direction);
+            if (JOptionPane.showConfirmDialog(frame, form, "Slice", JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION)
+                slice(criterion.getText().trim(), direction.getSelectedIndex() == 1);
         });
 
         //FINALIZE THE FRAME
@@ -225,44 +321,63 @@ public class mainframe extends JFrame {
     }
 
     /**
-     * Gets the j graph.
+     * Gets the j graph showing a laid out graph.
      *
+     * @param laidOut the laid out graph
      * @return the j graph
      */
-    private JGraph getJGraph() {
-        @SuppressWarnings("rawtypes")
-		ListenableGraph<GraphNode, RelationshipEdge> g = new ListenableDirectedGraph<>(hrefGraph);
-
-        JGraph jgraph = new JGraph(new JGraphModelAdapter<>(g));
-        jgraph.setGridEnabled(true);
-        jgraph.setGridVisible(true);
+    private JGraph getJGraph(AnalysisWorker.LaidOutGraph laidOut) {
+        JGraph jgraph = new JGraph(laidOut.model, laidOut.cache);
+        // the grid and the offscreen buffer cost more than they help once the shown graph is large
+        boolean small = laidOut.view.vertexSet().size() <= LevelOfDetail.DETAIL_LIMIT;
+        jgraph.setGridEnabled(small);
+        jgraph.setGridVisible(small);
         jgraph.setGridSize(10.0);
         jgraph.setDragEnabled(true);
         jgraph.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        jgraph.setVolatileOffscreen(true);
-
-        JGraphFacade facade = new JGraphFacade(jgraph);
-
-        facade.setIgnoresUnconnectedCells(false);
-        JGraphHierarchicalLayout layout = new JGraphHierarchicalLayout();
-        layout.setOrientation(SwingConstants.NORTH);
-        layout.setIntraCellSpacing(150.0);
-        layout.setLayoutFromSinks(false);
-        layout.run(facade);
-        Map<?, ?> nested = facade.createNestedMap(true, true);
-        if (nested != null)
-            jgraph.getGraphLayoutCache().edit(nested);
-
-        System.out.println("Layout complete");
+        jgraph.setVolatileOffscreen(small);
 
+        // a double click expands a summary node or collapses a method or loop
+        jgraph.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() != 2)
+                    return;
+                Object cell = jgraph.getFirstCellForLocation(e.getX(), e.getY());
+                if (cell instanceof DefaultGraphCell && ((DefaultGraphCell) cell).getUserObject() instanceof GraphNode
+                        && isIdle() && detail.toggle((GraphNode) ((DefaultGraphCell) cell).getUserObject()))
+                    relayout();
+            }
+        });
+        // ctrl and the wheel zoom, zooming far out of a large graph collapses it again
+        jgraph.addMouseWheelListener(e -> {
+            if (!e.isControlDown()) {
+                jgraph.getParent().dispatchEvent(SwingUtilities.convertMouseEvent(jgraph, e, jgraph.getParent()));
+                return;
+            }
+            jgraph.setScale(jgraph.getScale() * (e.getWheelRotation() < 0 ? 1.25 : 0.8));
+            if (jgraph.getScale() < MIN_DETAIL_SCALE && detail.isLarge() && isIdle() && detail.collapseAll())
+                relayout();
+        });
         return jgraph;
     }
 
     /**
      * Update graph.
+     *
+     * @param laidOut the laid out graph
      */
-    private void updateGraph() {
-        JGraph graph = getJGraph();
+    private void updateGraph(AnalysisWorker.LaidOutGraph laidOut) {
+        detail = laidOut.detail;
+        shown = laidOut;
+        if (hrefGraph != detail.getGraph()) {
+            hrefGraph = detail.getGraph();
+            slicer = null;
+            slice = null;
+            txtCodeGoesHere.getHighlighter().removeAllHighlights();
+        }
+        highlightSlice();
+        JGraph graph = getJGraph(laidOut);
         graph.setAutoResizeGraph(true);
         panel.removeAll();
 
@@ -274,17 +389,124 @@ public class mainframe extends JFrame {
     }
 
     /**
-     * Run analysis and make graph.
+     * Slices the graph from a line, a variable or a variable on a line, and highlights the slice in the graph and in the code.
+     *
+     * @param criterion the criterion, as line[:variable] or :variable
+     * @param forward true for a forward slice, false for a backward one
      */
-    private void runAnalysisAndMakeGraph() {
+    private void slice(String criterion, boolean forward) {
+        int line = 0;
+        String variable = null;
+        int colon = criterion.indexOf(':');
         try {
-            createGraph();
-            GraphNode gn = new GraphNode(0, "Entry");
-            hrefGraph.addVertex(gn);
-            if (astPrinter.addFile(new FileInputStream(selectedFile), hrefGraph, gn, consoleText))
-                updateGraph();
-        } catch (ParseException | IOException e1) {
-            e1.printStackTrace();
+            if (colon != 0)
+                line = Integer.parseInt(colon < 0 ? criterion : criterion.substring(0, colon));
+            if (colon >= 0)
+                variable = criterion.substring(colon + 1);
+        } catch (NumberFormatException e) {
+            consoleText.append("Not a slicing criterion: " + criterion + "\n");
+            return;
+        }
+        if (slicer == null)
+            slicer = Slicer.of(hrefGraph, astPrinter::fileName);
+        BitSet start = slicer.criterion(null, line, variable);
+        if (start.isEmpty()) {
+            consoleText.append("No node matches " + criterion + "\n");
+            return;
+        }
+        slice = forward ? slicer.forward(start) : slicer.backward(start);
+        consoleText.append((forward ? "Forward" : "Backward") + " slice of " + criterion + ": " + slice.cardinality()
+                + " of " + slicer.getNodeCount() + " nodes\n");
+
+        Highlighter highlighter = txtCodeGoesHere.getHighlighter();
+        highlighter.removeAllHighlights();
+        BitSet lines = new BitSet();
+        slice.stream().forEach(node -> lines.set(slicer.getLine(node)));
+        for (int l = lines.nextSetBit(1); l >= 0; l = lines.nextSetBit(l + 1)) {
+            try {
+                highlighter.addHighlight(txtCodeGoesHere.getLineStartOffset(l - 1), txtCodeGoesHere.getLineEndOffset(l - 1),
+                        new DefaultHighlighter.DefaultHighlightPainter(SLICE_COLOR));
+            } catch (BadLocationException e) {
+                // the code shown is not the code of the graph
+                break;
+            }
         }
+        highlightSlice();
+    }
+
+    /**
+     * Colors the shown nodes of the highlighted slice, and the other shown nodes back to the default color.
+     */
+    private void highlightSlice() {
+        if (slicer == null)
+            return;
+        Color background = GraphConstants.getBackground(JGraphModelAdapter.createDefaultVertexAttributes());
+        Map<Object, Object> nested = new Hashtable<>();
+        for (GraphNode node : shown.view.vertexSet()) {
+            int id = slicer.nodeId(node);
+            AttributeMap attributes = new AttributeMap();
+            GraphConstants.setBackground(attributes, slice != null && id >= 0 && slice.get(id) ? SLICE_COLOR : background);
+            nested.put(shown.model.getVertexCell(node), attributes);
+        }
+        shown.cache.edit(nested);
+    }
+
+    /**
+     * Whether no analysis or layout is running.
+     *
+     * @return true, if idle
+     */
+    private boolean isIdle() {
+        return worker == null && viewWorker == null;
+    }
+
+    /**
+     * Lays out the shown graph again after an expand or a collapse, away from the event dispatch thread.
+     */
+    private void relayout() {
+        status.setText("Laying out");
+        viewWorker = new SwingWorker<AnalysisWorker.LaidOutGraph, Void>() {
+            @Override
+            protected AnalysisWorker.LaidOutGraph doInBackground() {
+                return AnalysisWorker.layout(detail);
+            }
+
+            @Override
+            protected void done() {
+                viewWorker = null;
+                try {
+                    AnalysisWorker.LaidOutGraph laidOut = get();
+                    status.setText(laidOut.view.vertexSet().size() + " of " + hrefGraph.vertexSet().size() + " nodes shown");
+                    updateGraph(laidOut);
+                } catch (InterruptedException | ExecutionException e) {
+                    status.setText("Layout failed - " + e.getCause());
+                    e.printStackTrace();
+                }
+            }
+        };
+        viewWorker.execute();
+    }
+
+    /**
+     * Run analysis and make graph.
+     */
+    private void runAnalysisAndMakeGraph() {
+        if (selectedFile == null || !isIdle())
+            return;
+        worker = new AnalysisWorker(astPrinter, selectedFile, layouts, new TextAreaDiagnostics(consoleText), status, laidOut -> {
+            worker = null;
+            callGraphButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            progressBar.setValue(0);
+            if (laidOut != null)
+                updateGraph(laidOut);
+        });
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName()))
+                progressBar.setValue((Integer) e.getNewValue());
+        });
+        callGraphButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        worker.execute();
     }
-}
\ No newline at end of file
+}
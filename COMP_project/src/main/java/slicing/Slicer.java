@@ -0,0 +1,469 @@
+package slicing;
+
+import graphStore.GraphStore;
+import graphStructures.CompactGraph;
+import graphStructures.EdgeKind;
+import graphStructures.GraphNode;
+import graphStructures.RelationshipEdge;
+import org.jgrapht.DirectedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * The Class Slicer. Backward and forward slices of a built graph. The nodes get dense ids and the edges are
+ * copied once into outgoing and incoming compressed sparse rows with the code of their kind, so a slice is a
+ * walk over int arrays marking a {@link BitSet}, with no object made per node or edge reached.
+ * <p>
+ * A slice only follows the edges of the chosen kinds. When the graph has call edges (see the system dependence
+ * graph of {@code AnalysisOptions.setSdg}) the slice is taken in the two phases of Horwitz, Reps and Binkley, so
+ * it only holds the calling contexts that can actually reach it: a backward slice first climbs to the callers
+ * without descending into the called methods, stepping over the calls through the summary edges, then descends
+ * into the called methods without climbing back out. A forward slice does the opposite.
+ */
+public final class Slicer {
+
+    /** The edges a backward slice climbs to the callers with and a forward slice descends with. */
+    private static final int CALLER_EDGES = bit(EdgeKind.CALL) | bit(EdgeKind.PARAMETER_IN);
+
+    /** The edges a backward slice descends with and a forward slice climbs to the callers with. */
+    private static final int CALLEE_EDGES = bit(EdgeKind.RETURN);
+
+    /** The node count. */
+    private final int nodeCount;
+
+    /** The outgoing edges of every node. */
+    private final Rows outgoing;
+
+    /** The incoming edges of every node. */
+    private final Rows incoming;
+
+    /** The line of every node. */
+    private final int[] lines;
+
+    /** The file of every node, a key of the file names. */
+    private final int[] files;
+
+    /** The name of every file, by file key. */
+    private final IntFunction<String> fileNames;
+
+    /** The label of every node. */
+    private final IntFunction<String> labels;
+
+    /** The nodes, by id, null when sliced from a graph store. */
+    private final GraphNode[] nodes;
+
+    /** The id of every node, null when sliced from a graph store. */
+    private final HashMap<GraphNode, Integer> ids;
+
+    /**
+     * The Class Rows. The edges of every node in compressed sparse rows.
+     */
+    private static final class Rows {
+
+        /** The index of the first edge of every node, then the edge count. */
+        final int[] starts;
+
+        /** The node at the other end of every edge. */
+        final int[] ends;
+
+        /** The kind code of every edge. */
+        final byte[] kinds;
+
+        /**
+         * Groups edges by one of their ends with a counting sort.
+         *
+         * @param nodeCount the node count
+         * @param edgeCount the edge count
+         * @param from the end the edges are grouped by
+         * @param to the other end
+         * @param codes the kind code of every edge
+         */
+        Rows(int nodeCount, int edgeCount, int[] from, int[] to, byte[] codes) {
+            starts = new int[nodeCount + 1];
+            ends = new int[edgeCount];
+            kinds = new byte[edgeCount];
+            for (int edge = 0; edge < edgeCount; edge++)
+                starts[from[edge] + 1]++;
+            for (int node = 0; node < nodeCount; node++)
+                starts[node + 1] += starts[node];
+            int[] next = Arrays.copyOf(starts, nodeCount);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                int slot = next[from[edge]]++;
+                ends[slot] = to[edge];
+                kinds[slot] = codes[edge];
+            }
+        }
+    }
+
+    /**
+     * Instantiates a new slicer.
+     *
+     * @param nodeCount the node count
+     * @param edgeCount the edge count
+     * @param sources the source of every edge
+     * @param targets the target of every edge
+     * @param codes the kind code of every edge
+     * @param lines the line of every node
+     * @param files the file of every node
+     * @param fileNames the name of every file
+     * @param labels the label of every node
+     * @param nodes the nodes, null when there are none
+     * @param ids the id of every node, null when there are no nodes
+     */
+    private Slicer(int nodeCount, int edgeCount, int[] sources, int[] targets, byte[] codes, int[] lines, int[] files,
+                   IntFunction<String> fileNames, IntFunction<String> labels, GraphNode[] nodes, HashMap<GraphNode, Integer> ids) {
+        this.nodeCount = nodeCount;
+        this.outgoing = new Rows(nodeCount, edgeCount, sources, targets, codes);
+        this.incoming = new Rows(nodeCount, edgeCount, targets, sources, codes);
+        this.lines = lines;
+        this.files = files;
+        this.fileNames = fileNames;
+        this.labels = labels;
+        this.nodes = nodes;
+        this.ids = ids;
+    }
+
+    /**
+     * Makes the slicer of a graph built by the analysis. The node ids are the ids of the graph.
+     *
+     * @param hrefGraph the href graph
+     * @param fileNames the name of every file id, as {@code PDGCore::fileName}
+     * @return the slicer
+     */
+    public static Slicer of(CompactGraph hrefGraph, IntFunction<String> fileNames) {
+        int nodeCount = hrefGraph.getNodeCount();
+        int edgeCount = hrefGraph.getEdgeCount();
+        GraphNode[] nodes = new GraphNode[nodeCount];
+        HashMap<GraphNode, Integer> ids = new HashMap<>();
+        for (int node = 0; node < nodeCount; node++) {
+            nodes[node] = hrefGraph.getNode(node);
+            ids.put(nodes[node], node);
+        }
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        byte[] codes = new byte[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = hrefGraph.getEdgeSource(edge);
+            targets[edge] = hrefGraph.getEdgeTarget(edge);
+            codes[edge] = hrefGraph.getEdgeKindCode(edge);
+        }
+        return of(nodes, ids, edgeCount, sources, targets, codes, fileNames);
+    }
+
+    /**
+     * Makes the slicer of a JGraphT graph, such as the one the GUI shows. The node ids follow the vertex set order.
+     *
+     * @param hrefGraph the href graph
+     * @param fileNames the name of every file id, as {@code PDGCore::fileName}
+     * @return the slicer
+     */
+    public static Slicer of(@SuppressWarnings("rawtypes") DirectedGraph<GraphNode, RelationshipEdge> hrefGraph, IntFunction<String> fileNames) {
+        GraphNode[] nodes = hrefGraph.vertexSet().toArray(new GraphNode[0]);
+        HashMap<GraphNode, Integer> ids = new HashMap<>();
+        for (int node = 0; node < nodes.length; node++)
+            ids.put(nodes[node], node);
+        int edgeCount = hrefGraph.edgeSet().size();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        byte[] codes = new byte[edgeCount];
+        int edge = 0;
+        for (RelationshipEdge<?> e : hrefGraph.edgeSet()) {
+            sources[edge] = ids.get(hrefGraph.getEdgeSource(e));
+            targets[edge] = ids.get(hrefGraph.getEdgeTarget(e));
+            codes[edge] = e.getKind().code();
+            edge++;
+        }
+        return of(nodes, ids, edgeCount, sources, targets, codes, fileNames);
+    }
+
+    /**
+     * Makes the slicer of graph nodes and edges.
+     *
+     * @param nodes the nodes, by id
+     * @param ids the id of every node
+     * @param edgeCount the edge count
+     * @param sources the source of every edge
+     * @param targets the target of every edge
+     * @param codes the kind code of every edge
+     * @param fileNames the name of every file id
+     * @return the slicer
+     */
+    private static Slicer of(GraphNode[] nodes, HashMap<GraphNode, Integer> ids, int edgeCount, int[] sources, int[] targets,
+                             byte[] codes, IntFunction<String> fileNames) {
+        int[] lines = new int[nodes.length];
+        int[] files = new int[nodes.length];
+        for (int node = 0; node < nodes.length; node++) {
+            lines[node] = nodes[node].getLine();
+            files[node] = nodes[node].getFileId();
+        }
+        return new Slicer(nodes.length, edgeCount, sources, targets, codes, lines, files,
+                file -> file == 0 ? null : fileNames.apply(file), node -> nodes[node].getLabel(), nodes, ids);
+    }
+
+    /**
+     * Makes the slicer of a graph store. The node ids are the node indexes of the store, and only the
+     * labels of the nodes a criterion looks at are read from it.
+     *
+     * @param store the graph store
+     * @return the slicer
+     */
+    public static Slicer of(GraphStore store) {
+        int nodeCount = store.getNodeCount();
+        int edgeCount = store.getEdgeCount();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        byte[] codes = new byte[edgeCount];
+        int[] lines = new int[nodeCount];
+        int[] files = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            lines[node] = store.getLine(node);
+            files[node] = store.getFile(node);
+            for (int edge = store.getEdgeStart(node); edge < store.getEdgeEnd(node); edge++) {
+                sources[edge] = node;
+                targets[edge] = store.getEdgeTarget(edge);
+                codes[edge] = store.getEdgeKind(edge).code();
+            }
+        }
+        return new Slicer(nodeCount, edgeCount, sources, targets, codes, lines, files,
+                file -> file < 0 ? null : store.getFileName(file), store::getLabel, null, null);
+    }
+
+    /**
+     * Gets the bit of an edge kind in a kind mask.
+     *
+     * @param kind the edge kind
+     * @return the bit
+     */
+    private static int bit(EdgeKind kind) {
+        return 1 << kind.code();
+    }
+
+    /**
+     * Gets the mask of a set of edge kinds.
+     *
+     * @param kinds the edge kinds
+     * @return the mask
+     */
+    private static int mask(Set<EdgeKind> kinds) {
+        int mask = 0;
+        for (EdgeKind kind : kinds)
+            mask |= bit(kind);
+        return mask;
+    }
+
+    /**
+     * Gets the node count.
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the line of a node.
+     *
+     * @param node the node id
+     * @return the line
+     */
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    /**
+     * Gets the file name of a node.
+     *
+     * @param node the node id
+     * @return the file name, null for the nodes that do not come from a file
+     */
+    public String getFileName(int node) {
+        return fileNames.apply(files[node]);
+    }
+
+    /**
+     * Gets the label of a node.
+     *
+     * @param node the node id
+     * @return the label
+     */
+    public String getLabel(int node) {
+        return labels.apply(node);
+    }
+
+    /**
+     * Gets a node.
+     *
+     * @param node the node id
+     * @return the node, null when sliced from a graph store
+     */
+    public GraphNode getNode(int node) {
+        return nodes == null ? null : nodes[node];
+    }
+
+    /**
+     * Gets the id of a node.
+     *
+     * @param node the node
+     * @return the node id, -1 when the node is not in the graph or sliced from a graph store
+     */
+    public int nodeId(GraphNode node) {
+        Integer id = ids == null ? null : ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Finds the nodes a slice starts from. A variable matches the nodes whose statement names it before its
+     * first brace, so a loop or a method matches on its header and not on its body.
+     *
+     * @param fileName the file name, null for every file
+     * @param line the line, 0 for every line
+     * @param variable the variable, null for every node
+     * @return the nodes
+     */
+    public BitSet criterion(String fileName, int line, String variable) {
+        Pattern name = variable == null ? null : Pattern.compile("(?<![\\w$])" + Pattern.quote(variable) + "(?![\\w$])");
+        BitSet criterion = new BitSet(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if ((line > 0 && lines[node] != line) || (fileName != null && !fileName.equals(getFileName(node))))
+                continue;
+            if (name != null) {
+                String label = getLabel(node);
+                int brace = label.indexOf('{');
+                if (!name.matcher(brace < 0 ? label : label.substring(0, brace)).find())
+                    continue;
+            }
+            criterion.set(node);
+        }
+        return criterion;
+    }
+
+    /**
+     * Gets the backward slice of every edge kind: the nodes the criterion depends on.
+     *
+     * @param criterion the nodes the slice starts from
+     * @return the slice, holding the criterion
+     */
+    public BitSet backward(BitSet criterion) {
+        return backward(criterion, EnumSet.allOf(EdgeKind.class));
+    }
+
+    /**
+     * Gets the backward slice over some edge kinds: the nodes the criterion depends on through them.
+     *
+     * @param criterion the nodes the slice starts from
+     * @param kinds the edge kinds followed
+     * @return the slice, holding the criterion
+     */
+    public BitSet backward(BitSet criterion, Set<EdgeKind> kinds) {
+        return slice(criterion, incoming, mask(kinds), CALLEE_EDGES, CALLER_EDGES);
+    }
+
+    /**
+     * Gets the forward slice of every edge kind: the nodes depending on the criterion.
+     *
+     * @param criterion the nodes the slice starts from
+     * @return the slice, holding the criterion
+     */
+    public BitSet forward(BitSet criterion) {
+        return forward(criterion, EnumSet.allOf(EdgeKind.class));
+    }
+
+    /**
+     * Gets the forward slice over some edge kinds: the nodes depending on the criterion through them.
+     *
+     * @param criterion the nodes the slice starts from
+     * @param kinds the edge kinds followed
+     * @return the slice, holding the criterion
+     */
+    public BitSet forward(BitSet criterion, Set<EdgeKind> kinds) {
+        return slice(criterion, outgoing, mask(kinds), CALLER_EDGES, CALLEE_EDGES);
+    }
+
+    /**
+     * Gets the nodes of a slice.
+     *
+     * @param slice the slice
+     * @return the nodes, by id, empty when sliced from a graph store
+     */
+    public List<GraphNode> nodes(BitSet slice) {
+        ArrayList<GraphNode> sliced = new ArrayList<>();
+        if (nodes != null)
+            for (int node = slice.nextSetBit(0); node >= 0; node = slice.nextSetBit(node + 1))
+                sliced.add(nodes[node]);
+        return sliced;
+    }
+
+    /**
+     * Takes a slice in two phases: first without the edges that enter the called methods (or the callers, going
+     * forward), then from every node reached over them and without the edges leading back.
+     *
+     * @param criterion the nodes the slice starts from
+     * @param rows the rows followed
+     * @param kindMask the edge kinds followed
+     * @param deferred the edges only followed in the second phase
+     * @param dropped the edges only followed in the first phase
+     * @return the slice
+     */
+    private BitSet slice(BitSet criterion, Rows rows, int kindMask, int deferred, int dropped) {
+        BitSet slice = new BitSet(nodeCount);
+        int[] stack = new int[nodeCount];
+        int top = 0;
+        for (int node = criterion.nextSetBit(0); node >= 0 && node < nodeCount; node = criterion.nextSetBit(node + 1)) {
+            slice.set(node);
+            stack[top++] = node;
+        }
+        walk(rows, kindMask & ~deferred, slice, stack, top);
+        int entering = kindMask & deferred;
+        if (entering == 0)
+            return slice;
+        top = 0;
+        for (int node = slice.nextSetBit(0); node >= 0; node = slice.nextSetBit(node + 1))
+            top = step(rows, node, entering, slice, stack, top);
+        walk(rows, kindMask & ~dropped, slice, stack, top);
+        return slice;
+    }
+
+    /**
+     * Marks every node reached from the stacked nodes over some edge kinds.
+     *
+     * @param rows the rows followed
+     * @param kindMask the edge kinds followed
+     * @param slice the nodes reached so far
+     * @param stack the nodes to follow, every node is stacked at most once
+     * @param top the stacked node count
+     */
+    private static void walk(Rows rows, int kindMask, BitSet slice, int[] stack, int top) {
+        while (top > 0)
+            top = step(rows, stack[--top], kindMask, slice, stack, top);
+    }
+
+    /**
+     * Marks and stacks the nodes a node reaches in one edge of some kinds, unless reached before.
+     *
+     * @param rows the rows followed
+     * @param node the node
+     * @param kindMask the edge kinds followed
+     * @param slice the nodes reached so far
+     * @param stack the nodes to follow
+     * @param top the stacked node count
+     * @return the new stacked node count
+     */
+    private static int step(Rows rows, int node, int kindMask, BitSet slice, int[] stack, int top) {
+        for (int edge = rows.starts[node]; edge < rows.starts[node + 1]; edge++) {
+            int next = rows.ends[edge];
+            if ((kindMask & (1 << rows.kinds[edge])) != 0 && !slice.get(next)) {
+                slice.set(next);
+                stack[top++] = next;
+            }
+        }
+        return top;
+    }
+}